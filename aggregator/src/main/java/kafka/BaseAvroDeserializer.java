@@ -12,12 +12,17 @@ import org.apache.kafka.common.serialization.Deserializer;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Map;
 
 public class BaseAvroDeserializer<T extends SpecificRecordBase> implements Deserializer<T> {
 
+    public static final String REUSE_DECODER_CONFIG = "avro.decoder.reuse";
+
     protected final Schema schema;
     private final DatumReader<GenericRecord> datumReader;
     private final DecoderFactory decoderFactory;
+    private final ThreadLocal<BinaryDecoder> decoders = new ThreadLocal<>();
+    private boolean reuseDecoder = true;
 
     public BaseAvroDeserializer(Schema schema) {
         this(DecoderFactory.get(), schema);
@@ -30,18 +35,37 @@ public class BaseAvroDeserializer<T extends SpecificRecordBase> implements Deser
     }
 
     @Override
-    @SuppressWarnings("unchecked")
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object reuse = configs.get(REUSE_DECODER_CONFIG);
+        if (reuse != null) {
+            reuseDecoder = Boolean.parseBoolean(reuse.toString());
+        }
+    }
+
+    @Override
     public T deserialize(String topic, byte[] data) {
+        return deserialize(topic, data, null);
+    }
+
+    // reuse перезаписывается на месте вместе с вложенными записями — ссылки на прошлый результат хранить нельзя
+    @SuppressWarnings("unchecked")
+    public T deserialize(String topic, byte[] data, T reuse) {
         if (data == null || data.length == 0) {
             return null;
         }
         try {
-            BinaryDecoder binaryDecoder = decoderFactory.binaryDecoder(data, null);
-            return (T) datumReader.read(null, binaryDecoder);
+            BinaryDecoder binaryDecoder;
+            if (reuseDecoder) {
+                binaryDecoder = decoderFactory.binaryDecoder(data, decoders.get());
+                decoders.set(binaryDecoder);
+            } else {
+                binaryDecoder = decoderFactory.binaryDecoder(data, null);
+            }
+            return (T) datumReader.read(reuse, binaryDecoder);
         } catch (IOException e) {
             throw new SerializationException(
                     "Error deserializing Avro message for topic " + topic + ", data: " + Arrays.toString(data), e
             );
         }
     }
-}
\ No newline at end of file
+}
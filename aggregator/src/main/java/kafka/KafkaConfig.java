@@ -33,6 +33,12 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.auto-offset-reset}")
     private String autoOffsetReset;
 
+    @Value("${spring.kafka.consumer.enable-auto-commit:false}")
+    private boolean enableAutoCommit;
+
+    @Value("${app.state-store.enabled:false}")
+    private boolean stateStoreEnabled;
+
     @Value("${spring.kafka.producer.client-id}")
     private String clientId;
 
@@ -50,6 +56,12 @@ public class KafkaConfig {
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, keyDeserializer);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, valueDeserializer);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
+        // Со стором смещения фиксируются только вместе с чекпоинтом, иначе после рестарта
+        // восстановленное состояние отстанет от зафиксированной позиции и события потеряются
+        if (stateStoreEnabled && enableAutoCommit) {
+            log.warn("enable-auto-commit игнорируется: включён app.state-store");
+        }
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, enableAutoCommit && !stateStoreEnabled);
         props.put("specific.avro.reader", "true");
 
         log.info("Создан Kafka Consumer: bootstrap={}, group={}", bootstrapServers, groupId);
@@ -62,7 +74,7 @@ public class KafkaConfig {
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.CLIENT_ID_CONFIG, clientId);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, keySerializer);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, SensorsSnapshotSerializer.class.getName());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, SnapshotMessageSerializer.class.getName());
         props.put(ProducerConfig.ACKS_CONFIG, acks);
 
         log.info("Создан Kafka Producer: bootstrap={}, client={}", bootstrapServers, clientId);
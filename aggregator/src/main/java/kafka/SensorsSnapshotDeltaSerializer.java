@@ -0,0 +1,6 @@
+package kafka;
+
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotDeltaAvro;
+
+public class SensorsSnapshotDeltaSerializer extends BaseAvroSerializer<SensorsSnapshotDeltaAvro> {
+}
@@ -1,6 +1,116 @@
 package kafka;
 
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.kafka.common.errors.SerializationException;
+import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
 import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
 public class SensorsSnapshotSerializer extends BaseAvroSerializer<SensorsSnapshotAvro> {
-}
\ No newline at end of file
+
+    private final Map<String, Map<String, byte[]>> segments;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final DatumWriter<SensorStateAvro> stateWriter = new SpecificDatumWriter<>(SensorStateAvro.getClassSchema());
+    private BinaryEncoder encoder;
+    private long segmentsReused;
+    private long segmentsEncoded;
+
+    public SensorsSnapshotSerializer() {
+        this(false);
+    }
+
+    // С кэшем экземпляр хранит байты по хабам и не потокобезопасен — нужен отдельный на каждый поток.
+    // Состояния датчиков кэш не сравнивает: владелец вызывает invalidate при каждом изменении датчика
+    // и forget, когда состояние хаба заменяется целиком.
+    public SensorsSnapshotSerializer(boolean cacheSegments) {
+        this.segments = cacheSegments ? new HashMap<>() : null;
+    }
+
+    @Override
+    public byte[] serialize(String topic, SensorsSnapshotAvro data) {
+        if (segments == null || data == null) {
+            return super.serialize(topic, data);
+        }
+
+        // Бинарный Avro записи: hubId, timestamp, затем map одним блоком — [count][key, value]...[0].
+        // Пары key+value берём из кэша, перекодируем только датчики с новым состоянием.
+        try {
+            Map<String, byte[]> hubSegments = segments.computeIfAbsent(data.getHubId(), key -> new HashMap<>());
+            Map<String, SensorStateAvro> sensorsState = data.getSensorsState();
+            byte[][] parts = new byte[sensorsState.size()][];
+            int i = 0;
+            for (Map.Entry<String, SensorStateAvro> entry : sensorsState.entrySet()) {
+                parts[i++] = segmentOf(hubSegments, entry.getKey(), entry.getValue());
+            }
+            if (hubSegments.size() > sensorsState.size()) {
+                hubSegments.keySet().retainAll(sensorsState.keySet());
+            }
+
+            buffer.reset();
+            encoder = EncoderFactory.get().directBinaryEncoder(buffer, encoder);
+            encoder.writeString(data.getHubId());
+            encoder.writeLong(data.getTimestamp().toEpochMilli());
+            if (parts.length > 0) {
+                encoder.writeLong(parts.length);
+                for (byte[] part : parts) {
+                    buffer.write(part);
+                }
+            }
+            encoder.writeLong(0);
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Error serializing Avro message for topic " + topic, e);
+        }
+    }
+
+    public void invalidate(String hubId, String sensorId) {
+        if (segments != null) {
+            Map<String, byte[]> hubSegments = segments.get(hubId);
+            if (hubSegments != null) {
+                hubSegments.remove(sensorId);
+            }
+        }
+    }
+
+    public void forget(String hubId) {
+        if (segments != null) {
+            segments.remove(hubId);
+        }
+    }
+
+    public int getCachedHubs() {
+        return segments != null ? segments.size() : 0;
+    }
+
+    public long getSegmentsReused() {
+        return segmentsReused;
+    }
+
+    public long getSegmentsEncoded() {
+        return segmentsEncoded;
+    }
+
+    private byte[] segmentOf(Map<String, byte[]> hubSegments, String sensorId, SensorStateAvro state)
+            throws IOException {
+        byte[] cached = hubSegments.get(sensorId);
+        if (cached != null) {
+            segmentsReused++;
+            return cached;
+        }
+        buffer.reset();
+        encoder = EncoderFactory.get().directBinaryEncoder(buffer, encoder);
+        encoder.writeString(sensorId);
+        stateWriter.write(state, encoder);
+        byte[] bytes = buffer.toByteArray();
+        hubSegments.put(sensorId, bytes);
+        segmentsEncoded++;
+        return bytes;
+    }
+}
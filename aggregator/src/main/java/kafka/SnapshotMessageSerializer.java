@@ -0,0 +1,29 @@
+package kafka;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotDeltaAvro;
+
+public class SnapshotMessageSerializer implements Serializer<Object> {
+
+    private final SensorsSnapshotSerializer snapshotSerializer = new SensorsSnapshotSerializer();
+    private final SensorsSnapshotDeltaSerializer deltaSerializer = new SensorsSnapshotDeltaSerializer();
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (data instanceof SensorsSnapshotAvro snapshot) {
+            return snapshotSerializer.serialize(topic, snapshot);
+        }
+        if (data instanceof SensorsSnapshotDeltaAvro delta) {
+            return deltaSerializer.serialize(topic, delta);
+        }
+        throw new SerializationException("Unsupported snapshot message type " + data.getClass().getName());
+    }
+}
@@ -1,29 +1,84 @@
 package service;
 
+import kafka.SensorsSnapshotSerializer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
 import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
 import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotDeltaAvro;
+import ru.yandex.practicum.telemetry.logging.EventLogSampler;
 
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class AggregationService {
 
+    private final EventLogSampler logSampler;
+
     private final Map<String, SensorsSnapshotAvro> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, CompactHubState> compactHubs = new HashMap<>();
+    private final Set<String> pendingHubs = new LinkedHashSet<>();
+    private final Map<String, HubDelta> deltas = new HashMap<>();
+    private final Set<String> dirtyHubs = new HashSet<>();
+    private ChangeDetection changeDetection = ChangeDetection.EQUALS;
+    private StateLayout stateLayout = StateLayout.AVRO;
+    private final Map<String, Long> lastActive = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> spilledLastActive = new LinkedHashMap<>();
+    private int fullSnapshotEvery;
+    private long fullSnapshotIntervalMs;
+    private boolean trackDirty;
+    private HubSpillStore spillStore;
+    private ReorderBuffer reorderBuffer;
+    private SensorsSnapshotSerializer snapshotEncoder;
+    private long idleTtlMs;
+    private int maxResidentHubs;
+    private long expiredCount;
+    private long spilledCount;
+    private long rehydratedCount;
 
     public Optional<SensorsSnapshotAvro> updateState(SensorEventAvro event) {
+        return apply(event) ? Optional.of(snapshotOf(event.getHubId())) : Optional.empty();
+    }
+
+    public boolean apply(SensorEventAvro event) {
+        return apply(event, logSampler.sample());
+    }
+
+    // Вызывающий код, который сам логирует событие, передаёт уже принятое решение сэмплера
+    public boolean apply(SensorEventAvro event, boolean logEvent) {
         String hubId = String.valueOf(event.getHubId());
         String sensorId = String.valueOf(event.getId());
 
-        log.debug("Получено событие: hubId={}, sensorId={}, timestamp={}",
-                hubId, sensorId, event.getTimestamp());
+        if (logEvent) {
+            log.debug("Получено событие: hubId={}, sensorId={}, timestamp={}",
+                    hubId, sensorId, event.getTimestamp());
+        }
+
+        if (spillStore != null) {
+            touch(hubId);
+        }
+        if (stateLayout == StateLayout.COMPACT) {
+            return applyCompact(hubId, sensorId, event, logEvent);
+        }
 
         SensorsSnapshotAvro snapshot = snapshots.computeIfAbsent(
                 hubId,
@@ -43,26 +98,34 @@ public class AggregationService {
         boolean shouldUpdate = false;
 
         if (oldState == null) {
-            log.debug("Новый датчик, добавляем в снапшот");
+            if (logEvent) {
+                log.debug("Новый датчик, добавляем в снапшот");
+            }
             shouldUpdate = true;
         } else {
             // Проверяем timestamp: событие должно быть НЕ старше
             if (event.getTimestamp().isBefore(oldState.getTimestamp())) {
-                log.debug("Событие устарело (timestamp старше), пропускаем");
-                return Optional.empty();
+                if (logEvent) {
+                    log.debug("Событие устарело (timestamp старше), пропускаем");
+                }
+                return false;
             }
 
-            if (!oldState.getData().equals(event.getPayload())) {
-                log.debug("Данные изменились, обновляем снапшот");
+            if (payloadChanged(oldState, event.getPayload())) {
+                if (logEvent) {
+                    log.debug("Данные изменились, обновляем снапшот");
+                }
                 shouldUpdate = true;
             } else {
-                log.debug("Данные не изменились, пропускаем");
-                return Optional.empty();
+                if (logEvent) {
+                    log.debug("Данные не изменились, пропускаем");
+                }
+                return false;
             }
         }
 
         if (!shouldUpdate) {
-            return Optional.empty();
+            return false;
         }
 
         SensorStateAvro newState = new SensorStateAvro();
@@ -70,9 +133,308 @@ public class AggregationService {
         newState.setData(event.getPayload());
 
         sensorsState.put(sensorId, newState);
+        markChanged(hubId, sensorId);
         snapshot.setTimestamp(event.getTimestamp());
 
-        log.info("Снапшот обновлён для хаба: {}, сенсор: {}", hubId, sensorId);
-        return Optional.of(snapshot);
+        if (logEvent) {
+            log.info("Снапшот обновлён для хаба: {}, сенсор: {}", hubId, sensorId);
+        }
+        return true;
+    }
+
+    private boolean applyCompact(String hubId, String sensorId, SensorEventAvro event, boolean logEvent) {
+        CompactHubState state = compactHubs.computeIfAbsent(hubId, key -> {
+            log.info("Создаём новый снапшот для хаба: {}", key);
+            return new CompactHubState(key);
+        });
+        CompactHubState.Change change = state.apply(sensorId, event.getTimestamp().toEpochMilli(), event.getPayload());
+        if (logEvent) {
+            log.debug("Результат обновления датчика {} хаба {}: {}", sensorId, hubId, change);
+        }
+        if (change == CompactHubState.Change.STALE || change == CompactHubState.Change.UNCHANGED) {
+            return false;
+        }
+        markChanged(hubId, sensorId);
+        return true;
+    }
+
+    private void markChanged(String hubId, String sensorId) {
+        if (fullSnapshotEvery > 0) {
+            deltas.computeIfAbsent(hubId, key -> new HubDelta()).changed.add(sensorId);
+        }
+        if (trackDirty) {
+            dirtyHubs.add(hubId);
+        }
+        if (snapshotEncoder != null) {
+            snapshotEncoder.invalidate(hubId, sensorId);
+        }
+    }
+
+    public SensorsSnapshotAvro snapshotOf(String hubId) {
+        if (stateLayout == StateLayout.COMPACT) {
+            CompactHubState state = compactHubs.get(hubId);
+            return state != null ? state.toAvro() : null;
+        }
+        return snapshots.get(hubId);
+    }
+
+    public void setStateLayout(StateLayout stateLayout) {
+        this.stateLayout = stateLayout;
+    }
+
+    public void enableResidencyLimits(long idleTtlMs, int maxResidentHubs, Path spillDirectory) {
+        this.idleTtlMs = idleTtlMs;
+        this.maxResidentHubs = maxResidentHubs;
+        this.spillStore = new HubSpillStore(spillDirectory);
+    }
+
+    private void touch(String hubId) {
+        if (!isResident(hubId) && spillStore.contains(hubId)) {
+            restore(spillStore.take(hubId));
+            spilledLastActive.remove(hubId);
+            rehydratedCount++;
+        }
+        lastActive.put(hubId, System.currentTimeMillis());
+    }
+
+    private boolean isResident(String hubId) {
+        return stateLayout == StateLayout.COMPACT ? compactHubs.containsKey(hubId) : snapshots.containsKey(hubId);
+    }
+
+    // lastActive упорядочен по последнему обновлению: сначала простаивающие, затем вытесняемые сверх лимита
+    public List<String> enforceResidency(long now) {
+        List<String> expired = new ArrayList<>();
+        if (spillStore == null) {
+            return expired;
+        }
+        int excess = maxResidentHubs > 0 ? lastActive.size() - maxResidentHubs : 0;
+        Iterator<Map.Entry<String, Long>> iterator = lastActive.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            boolean idle = idleTtlMs > 0 && now - entry.getValue() >= idleTtlMs;
+            if (!idle && excess <= 0) {
+                break;
+            }
+            String hubId = entry.getKey();
+            if (pendingHubs.contains(hubId) || dirtyHubs.contains(hubId)
+                    || (reorderBuffer != null && reorderBuffer.isBuffering(hubId))) {
+                continue;
+            }
+            iterator.remove();
+            if (idle) {
+                expired.add(hubId);
+                expiredCount++;
+            } else {
+                spillStore.write(snapshotOf(hubId));
+                spilledLastActive.put(hubId, entry.getValue());
+                spilledCount++;
+            }
+            drop(hubId);
+            excess--;
+        }
+        expireSpilled(now, expired);
+        return expired;
+    }
+
+    // Вытесняются самые давние хабы, поэтому порядок вставки почти совпадает с порядком активности;
+    // где не совпадает (хаб пропускали из-за буферов), удаление лишь запоздает до истечения соседа
+    private void expireSpilled(long now, List<String> expired) {
+        if (idleTtlMs <= 0) {
+            return;
+        }
+        Iterator<Map.Entry<String, Long>> iterator = spilledLastActive.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (now - entry.getValue() < idleTtlMs) {
+                break;
+            }
+            iterator.remove();
+            spillStore.remove(entry.getKey());
+            expired.add(entry.getKey());
+            expiredCount++;
+        }
+    }
+
+    public int getResidentHubs() {
+        return stateLayout == StateLayout.COMPACT ? compactHubs.size() : snapshots.size();
+    }
+
+    public int getSpilledHubs() {
+        return spillStore != null ? spillStore.size() : 0;
+    }
+
+    public long getExpiredCount() {
+        return expiredCount;
+    }
+
+    public long getSpilledCount() {
+        return spilledCount;
+    }
+
+    public long getRehydratedCount() {
+        return rehydratedCount;
+    }
+
+    public void enableEventTime(long maxDelayMs, int maxEventsPerHub) {
+        this.reorderBuffer = new ReorderBuffer(maxDelayMs, maxEventsPerHub);
+    }
+
+    ReorderBuffer reorderBuffer() {
+        return reorderBuffer;
+    }
+
+    public void enableSnapshotCache() {
+        this.snapshotEncoder = new SensorsSnapshotSerializer(true);
+    }
+
+    SensorsSnapshotSerializer snapshotEncoder() {
+        return snapshotEncoder;
+    }
+
+    public byte[] encode(SensorsSnapshotAvro snapshot) {
+        return snapshotEncoder.serialize(null, snapshot);
+    }
+
+    public void setChangeDetection(ChangeDetection changeDetection) {
+        this.changeDetection = changeDetection;
+    }
+
+    // Отпечаток снимается с уже хранимого payload: отдельная карта отпечатков не нужна,
+    // а сравнение идёт по типизированным полям, без обхода схемы в SpecificRecord.equals
+    private boolean payloadChanged(SensorStateAvro oldState, Object payload) {
+        if (changeDetection == ChangeDetection.EQUALS) {
+            return !oldState.getData().equals(payload);
+        }
+        return !PayloadFingerprint.of(oldState.getData()).equals(PayloadFingerprint.of(payload));
+    }
+
+    public void enableDeltas(int fullSnapshotEvery, long fullSnapshotIntervalMs) {
+        this.fullSnapshotEvery = Math.max(1, fullSnapshotEvery);
+        this.fullSnapshotIntervalMs = Math.max(0, fullSnapshotIntervalMs);
+    }
+
+    public SensorsSnapshotDeltaAvro takeDelta(SensorsSnapshotAvro snapshot) {
+        long now = System.currentTimeMillis();
+        HubDelta delta = deltas.computeIfAbsent(snapshot.getHubId(), key -> new HubDelta());
+        delta.version++;
+        boolean full = (delta.version - 1) % fullSnapshotEvery == 0 || fullSnapshotDue(delta, now);
+        Map<String, SensorStateAvro> sensors = snapshot.getSensorsState();
+        if (full) {
+            delta.lastFullAt = now;
+        } else {
+            sensors = HashMap.newHashMap(delta.changed.size());
+            for (String sensorId : delta.changed) {
+                sensors.put(sensorId, snapshot.getSensorsState().get(sensorId));
+            }
+        }
+        delta.changed.clear();
+        return new SensorsSnapshotDeltaAvro(snapshot.getHubId(), snapshot.getTimestamp(), delta.version, full, sensors);
+    }
+
+    // Полный снимок по времени, чтобы новый потребитель дельт не ждал N изменений редко меняющегося хаба
+    public void refreshFullSnapshots(long now, Consumer<SensorsSnapshotAvro> sink) {
+        if (fullSnapshotIntervalMs == 0) {
+            return;
+        }
+        List<String> due = new ArrayList<>();
+        deltas.forEach((hubId, delta) -> {
+            if (fullSnapshotDue(delta, now)) {
+                due.add(hubId);
+            }
+        });
+        for (String hubId : due) {
+            SensorsSnapshotAvro snapshot = snapshotOf(hubId);
+            if (snapshot != null) {
+                sink.accept(snapshot);
+            }
+        }
+    }
+
+    private boolean fullSnapshotDue(HubDelta delta, long now) {
+        return fullSnapshotIntervalMs > 0 && now - delta.lastFullAt >= fullSnapshotIntervalMs;
+    }
+
+    public void enableDirtyTracking() {
+        this.trackDirty = true;
+    }
+
+    public void restore(SensorsSnapshotAvro snapshot) {
+        if (snapshotEncoder != null) {
+            snapshotEncoder.forget(snapshot.getHubId());
+        }
+        if (stateLayout == StateLayout.COMPACT) {
+            compactHubs.put(snapshot.getHubId(), CompactHubState.fromAvro(snapshot));
+        } else {
+            snapshots.put(snapshot.getHubId(), snapshot);
+        }
+        if (spillStore != null) {
+            lastActive.putIfAbsent(snapshot.getHubId(), System.currentTimeMillis());
+        }
+    }
+
+    public void drainDirty(BiConsumer<String, SensorsSnapshotAvro> sink) {
+        for (String hubId : dirtyHubs) {
+            SensorsSnapshotAvro snapshot = snapshotOf(hubId);
+            if (snapshot != null) {
+                sink.accept(hubId, snapshot);
+            }
+        }
+        dirtyHubs.clear();
+    }
+
+    public void forEachSnapshot(BiConsumer<String, SensorsSnapshotAvro> sink) {
+        if (stateLayout == StateLayout.COMPACT) {
+            compactHubs.forEach((hubId, state) -> sink.accept(hubId, state.toAvro()));
+        } else {
+            snapshots.forEach(sink);
+        }
+        if (spillStore != null) {
+            spillStore.forEach(sink);
+        }
+    }
+
+    public void defer(String hubId) {
+        pendingHubs.add(hubId);
+    }
+
+    public void drainPending(Consumer<SensorsSnapshotAvro> sink) {
+        for (String hubId : pendingHubs) {
+            SensorsSnapshotAvro snapshot = snapshotOf(hubId);
+            if (snapshot != null) {
+                sink.accept(snapshot);
+            }
+        }
+        pendingHubs.clear();
+    }
+
+    public void evict(Collection<String> hubIds) {
+        for (String hubId : hubIds) {
+            drop(hubId);
+            lastActive.remove(hubId);
+            spilledLastActive.remove(hubId);
+            if (spillStore != null) {
+                spillStore.remove(hubId);
+            }
+        }
+    }
+
+    private void drop(String hubId) {
+        snapshots.remove(hubId);
+        compactHubs.remove(hubId);
+        pendingHubs.remove(hubId);
+        deltas.remove(hubId);
+        dirtyHubs.remove(hubId);
+        if (reorderBuffer != null) {
+            reorderBuffer.evict(hubId);
+        }
+        if (snapshotEncoder != null) {
+            snapshotEncoder.forget(hubId);
+        }
+    }
+
+    private static final class HubDelta {
+        private long version;
+        private long lastFullAt;
+        private final Set<String> changed = new HashSet<>();
     }
-}
\ No newline at end of file
+}
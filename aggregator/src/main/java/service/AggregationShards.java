@@ -0,0 +1,10 @@
+package service;
+
+import java.util.function.Consumer;
+
+// Задача выполняется на каждом шарде в его потоке, а без шардирования — на единственном сервисе в потоке опроса
+@FunctionalInterface
+interface AggregationShards {
+
+    void forEach(Consumer<AggregationService> task);
+}
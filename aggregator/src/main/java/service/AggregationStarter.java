@@ -6,14 +6,17 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.KafkaProducer;
-import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.errors.WakeupException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.telemetry.logging.CountingAsyncAppender;
+import ru.yandex.practicum.telemetry.logging.EventLogSampler;
 
 import java.time.Duration;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
@@ -23,12 +26,31 @@ public class AggregationStarter {
     private final KafkaConsumer<String, SensorEventAvro> consumer;
     private final KafkaProducer<String, Object> producer;
     private final AggregationService aggregationService;
+    private final EventLogSampler logSampler;
+    private final EmissionPolicy emission;
+    private final CheckpointCoordinator checkpoints;
+    private final EventTimeOrdering eventTime;
+    private final HubResidency residency;
 
     @Value("${app.kafka.topic.sensors}")
-    private String sensorsTopic;
+    private List<String> sensorsTopics;
 
-    @Value("${app.kafka.topic.snapshots}")
-    private String snapshotsTopic;
+    @Value("${app.logging.report-interval-ms:60000}")
+    private long logReportIntervalMs;
+
+    @Value("${app.aggregation.workers:1}")
+    private int workers;
+
+    @Value("${app.aggregation.change-detection:EQUALS}")
+    private ChangeDetection changeDetection;
+
+    @Value("${app.aggregation.state-layout:AVRO}")
+    private StateLayout stateLayout;
+
+    private ShardedAggregation sharded;
+    private AggregationShards shards;
+    private HubPartitionTracker partitionTracker;
+    private int configuredShards;
 
     public void start() {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -36,32 +58,83 @@ public class AggregationStarter {
             consumer.wakeup();
         }));
 
+        configure(aggregationService);
+        sharded = workers > 1
+                ? new ShardedAggregation(workers, this::newShard, this::process)
+                : null;
+        shards = sharded != null ? sharded::runOnShards : task -> task.accept(aggregationService);
+        checkpoints.restore(sharded != null ? sharded::restore : aggregationService::restore);
+        Consumer<Collection<String>> shardEvictor = sharded != null ? sharded::evict : aggregationService::evict;
+        Consumer<Collection<String>> evictor = shardEvictor.andThen(checkpoints::evicted);
+        boolean failed = false;
+
         try {
-            consumer.subscribe(Collections.singletonList(sensorsTopic));
-            log.info("Подписались на топик: {}", sensorsTopic);
+            partitionTracker = new HubPartitionTracker(producer, evictor,
+                    this::flushAndCheckpoint, this::commitConsumed, checkpoints::seekRestored);
+            consumer.subscribe(sensorsTopics, partitionTracker);
+            log.info("Подписались на топики: {}", sensorsTopics);
+            if (sensorsTopics.size() > 1) {
+                // События хаба приходят из партиций разных топиков, которые могут достаться разным экземплярам
+                log.warn("Чтение нескольких топиков датчиков {} допустимо только одним экземпляром агрегатора",
+                        sensorsTopics);
+            }
 
+            long nextLogReport = System.currentTimeMillis() + logReportIntervalMs;
             while (true) {
                 ConsumerRecords<String, SensorEventAvro> records = consumer.poll(Duration.ofMillis(100));
 
                 for (ConsumerRecord<String, SensorEventAvro> record : records) {
-                    log.debug("Обрабатываем событие: {}", record.value());
-                    aggregationService.updateState(record.value())
-                            .ifPresent(snapshot -> {
-                                log.info("Отправляем обновленный снапшот для хаба: {}", snapshot.getHubId());
-                                producer.send(new ProducerRecord<>(snapshotsTopic, snapshot.getHubId(), snapshot));
-                            });
+                    partitionTracker.track(record.value().getHubId(), record.topic(), record.partition());
+                    checkpoints.record(record);
+                    if (sharded == null) {
+                        process(aggregationService, record);
+                    }
+                }
+                if (sharded != null) {
+                    sharded.process(records);
+                }
+                eventTime.releaseDue(shards, this::handle);
+
+                emission.refreshIfDue(shards);
+                if (emission.flushDue()) {
+                    flushPending();
+                }
+                if (checkpoints.checkpointDue()) {
+                    flushAndCheckpoint();
+                }
+                checkpoints.maybeCommit();
+
+                List<String> expired = residency.enforceIfDue(shards);
+                if (!expired.isEmpty()) {
+                    partitionTracker.forget(expired);
+                    checkpoints.expired(expired);
+                }
+
+                if (System.currentTimeMillis() >= nextLogReport) {
+                    nextLogReport = System.currentTimeMillis() + logReportIntervalMs;
+                    report();
                 }
             }
         } catch (WakeupException ignored) {
             log.info("Получен сигнал на остановку. Завершаем работу.");
         } catch (Exception e) {
             log.error("Ошибка во время обработки событий от датчиков", e);
+            failed = true;
         } finally {
             try {
                 log.info("Сбрасываем буфер продюсера и фиксируем смещения");
+                if (!failed) {
+                    flushAndCheckpoint();
+                }
                 producer.flush();
-                consumer.commitSync();
+                if (!failed) {
+                    commitConsumed();
+                }
             } finally {
+                checkpoints.close();
+                if (sharded != null) {
+                    sharded.close();
+                }
                 log.info("Закрываем консьюмер");
                 consumer.close();
                 log.info("Закрываем продюсер");
@@ -69,4 +142,62 @@ public class AggregationStarter {
             }
         }
     }
-}
\ No newline at end of file
+
+    private void process(AggregationService service, ConsumerRecord<String, SensorEventAvro> record) {
+        ReorderBuffer reorderBuffer = service.reorderBuffer();
+        if (reorderBuffer == null) {
+            handle(service, record);
+        } else {
+            reorderBuffer.offer(record, System.currentTimeMillis(), ready -> handle(service, ready));
+        }
+    }
+
+    private void handle(AggregationService service, ConsumerRecord<String, SensorEventAvro> record) {
+        boolean logEvent = logSampler.sample();
+        if (logEvent) {
+            log.debug("Обрабатываем событие: {}", record.value());
+        }
+        if (service.apply(record.value(), logEvent)) {
+            emission.updated(service, record.value().getHubId(), logEvent);
+        }
+    }
+
+    private AggregationService newShard() {
+        AggregationService shard = new AggregationService(logSampler);
+        configure(shard);
+        return shard;
+    }
+
+    private void configure(AggregationService service) {
+        service.setChangeDetection(changeDetection);
+        service.setStateLayout(stateLayout);
+        emission.configure(service);
+        checkpoints.configure(service);
+        eventTime.configure(service);
+        residency.configure(service, configuredShards++);
+    }
+
+    // Пачка смещений закрывается только после отправки её отложенных снапшотов
+    private void flushPending() {
+        emission.flush(shards);
+        checkpoints.seal(eventTime.holdback(shards));
+    }
+
+    private void flushAndCheckpoint() {
+        flushPending();
+        checkpoints.checkpoint(shards, eventTime.holdback(shards));
+    }
+
+    private void commitConsumed() {
+        checkpoints.commitConsumed(() -> eventTime.holdback(shards));
+    }
+
+    private void report() {
+        log.info("Логирование событий: пропущено сэмплированием={}, отброшено асинхронным аппендером={}",
+                logSampler.getSuppressedCount(), CountingAsyncAppender.getDroppedCount());
+        emission.report(shards);
+        residency.report(shards);
+        eventTime.report(shards);
+        checkpoints.report();
+    }
+}
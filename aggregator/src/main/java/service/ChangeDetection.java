@@ -0,0 +1,6 @@
+package service;
+
+public enum ChangeDetection {
+    EQUALS,
+    FINGERPRINT
+}
@@ -0,0 +1,213 @@
+package service;
+
+import kafka.SensorsSnapshotSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+class CheckpointCoordinator {
+
+    private final KafkaConsumer<String, SensorEventAvro> consumer;
+    private final KafkaProducer<String, Object> producer;
+    private final SnapshotStateStore stateStore;
+    private final OffsetCommitter offsetCommitter;
+    private final long checkpointIntervalMs;
+    private final boolean changelogEnabled;
+    private final String changelogTopic;
+    private final boolean snapshotCacheEnabled;
+    private final SensorsSnapshotSerializer snapshotSerializer = new SensorsSnapshotSerializer();
+    private final Map<TopicPartition, Long> restoredOffsets = new HashMap<>();
+    private boolean compactOnNextCheckpoint;
+    private long nextCheckpoint;
+
+    CheckpointCoordinator(KafkaConsumer<String, SensorEventAvro> consumer,
+                          KafkaProducer<String, Object> producer,
+                          SnapshotStateStore stateStore,
+                          @Value("${app.kafka.commit.interval:1s}") Duration commitInterval,
+                          @Value("${app.state-store.checkpoint-interval:5s}") Duration checkpointInterval,
+                          @Value("${app.state-store.changelog.enabled:true}") boolean changelogEnabled,
+                          @Value("${app.state-store.changelog.topic:telemetry.aggregator-state.v1}") String changelogTopic,
+                          @Value("${app.aggregation.snapshot-cache.enabled:false}") boolean snapshotCacheEnabled) {
+        this.consumer = consumer;
+        this.producer = producer;
+        this.stateStore = stateStore;
+        this.offsetCommitter = new OffsetCommitter(consumer, commitInterval.toMillis());
+        this.checkpointIntervalMs = checkpointInterval.toMillis();
+        this.changelogEnabled = changelogEnabled;
+        this.changelogTopic = changelogTopic;
+        this.snapshotCacheEnabled = snapshotCacheEnabled;
+        this.nextCheckpoint = System.currentTimeMillis() + checkpointIntervalMs;
+    }
+
+    void configure(AggregationService service) {
+        if (stateStore.isEnabled()) {
+            service.enableDirtyTracking();
+        }
+    }
+
+    void restore(Consumer<SensorsSnapshotAvro> restorer) {
+        if (!stateStore.isEnabled()) {
+            return;
+        }
+        SnapshotStateStore.RestoredState restored = stateStore.load();
+        Map<String, SensorsSnapshotAvro> snapshots = restored.snapshots();
+        if (restored.offsets().isEmpty() && changelogEnabled) {
+            snapshots = stateStore.restoreFromChangelog(changelogTopic);
+            compactOnNextCheckpoint = true;
+        } else {
+            restoredOffsets.putAll(restored.offsets());
+        }
+        snapshots.values().forEach(restorer);
+    }
+
+    void seekRestored(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            Long offset = restoredOffsets.remove(partition);
+            if (offset != null) {
+                consumer.seek(partition, offset);
+                log.info("Партиция {} продолжает чтение с сохранённого смещения {}", partition, offset);
+            }
+        }
+    }
+
+    void record(ConsumerRecord<String, ?> record) {
+        offsetCommitter.record(record);
+    }
+
+    // Берётся в потоках шардов при отправке снапшота; колбэк продюсера трогает только счётчики своей пачки
+    Callback track() {
+        return offsetCommitter.track();
+    }
+
+    // Пачка закрывается в потоке опроса, когда шарды уже отправили её снапшоты
+    void seal(Map<TopicPartition, Long> holdback) {
+        offsetCommitter.seal(holdback);
+    }
+
+    boolean checkpointDue() {
+        if (!stateStore.isEnabled()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextCheckpoint) {
+            return false;
+        }
+        nextCheckpoint = now + checkpointIntervalMs;
+        return true;
+    }
+
+    // Без стора смещения фиксируются по интервалу, как только подтверждены снапшоты их пачек
+    void maybeCommit() {
+        if (!stateStore.isEnabled()) {
+            offsetCommitter.maybeCommit();
+        }
+    }
+
+    void checkpoint(AggregationShards shards, Map<TopicPartition, Long> holdback) {
+        if (!stateStore.isEnabled()) {
+            return;
+        }
+        boolean full = compactOnNextCheckpoint || stateStore.needsCompaction();
+        Map<String, byte[]> changed = new ConcurrentHashMap<>();
+        Map<String, byte[]> all = full ? new ConcurrentHashMap<>() : changed;
+        BiConsumer<String, SensorsSnapshotAvro> fullSink = (hubId, snapshot) ->
+                all.put(hubId, snapshotSerializer.serialize(changelogTopic, snapshot));
+        shards.forEach(service -> {
+            service.drainDirty((hubId, snapshot) -> changed.put(hubId, snapshotCacheEnabled
+                    ? service.encode(snapshot)
+                    : snapshotSerializer.serialize(changelogTopic, snapshot)));
+            if (full) {
+                service.forEachSnapshot(fullSink);
+            }
+        });
+
+        if (changelogEnabled) {
+            changed.forEach((hubId, bytes) -> producer.send(new ProducerRecord<>(changelogTopic, hubId, bytes)));
+        }
+        producer.flush();
+
+        Map<TopicPartition, OffsetAndMetadata> commits = consumedPositions(holdback);
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        commits.forEach((partition, offset) -> offsets.put(partition, offset.offset()));
+        try {
+            stateStore.checkpoint(all, offsets, full);
+            compactOnNextCheckpoint = false;
+        } catch (IOException e) {
+            log.error("Не удалось записать чекпоинт состояния, следующий будет полным", e);
+            compactOnNextCheckpoint = true;
+            return;
+        }
+        commit(commits);
+    }
+
+    // Со стором смещения фиксирует только checkpoint — ровно те, что записаны в чекпоинт.
+    // Фиксация дальше чекпоинта после рестарта пропустила бы события между ними.
+    void commitConsumed(Supplier<Map<TopicPartition, Long>> holdback) {
+        if (stateStore.isEnabled()) {
+            return;
+        }
+        commit(consumedPositions(holdback.get()));
+    }
+
+    // Хабы отозванных партиций: их снапшоты теперь ведёт другой экземпляр
+    void evicted(Collection<String> hubIds) {
+        stateStore.markRemoved(hubIds);
+    }
+
+    // Хабы, удалённые по TTL, стираются и из changelog, чтобы не вернуться при восстановлении
+    void expired(Collection<String> hubIds) {
+        stateStore.markRemoved(hubIds);
+        if (stateStore.isEnabled() && changelogEnabled) {
+            hubIds.forEach(hubId -> producer.send(new ProducerRecord<>(changelogTopic, hubId, null)));
+        }
+    }
+
+    void report() {
+        log.info("Фиксация смещений: отставание={} записей, ждут подтверждения={} пачек, "
+                        + "фиксаций={}, ошибок={}, с последней фиксации {} мс",
+                offsetCommitter.commitLag(), offsetCommitter.getPendingBatches(),
+                offsetCommitter.getCommitCount(), offsetCommitter.getCommitFailures(),
+                offsetCommitter.getMillisSinceLastCommit());
+    }
+
+    void close() {
+        stateStore.close();
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> consumedPositions(Map<TopicPartition, Long> holdback) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : consumer.assignment()) {
+            long position = consumer.position(partition);
+            long committable = Math.min(position, holdback.getOrDefault(partition, position));
+            offsets.put(partition, new OffsetAndMetadata(committable));
+        }
+        return offsets;
+    }
+
+    private void commit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsetCommitter.verifyAcked();
+        consumer.commitSync(offsets);
+        offsetCommitter.committedAll(offsets);
+    }
+}
@@ -0,0 +1,7 @@
+package service;
+
+public enum CoalescingMode {
+    NONE,
+    BATCH,
+    WINDOW
+}
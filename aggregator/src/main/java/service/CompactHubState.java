@@ -0,0 +1,181 @@
+package service;
+
+import ru.yandex.practicum.kafka.telemetry.event.ClimateSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.LightSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.MotionSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SwitchSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.TemperatureSensorAvro;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Состояние хаба в примитивных массивах: слот датчика = id, long timestamp, тип и три int-значения.
+final class CompactHubState {
+
+    enum Change {
+        NEW,
+        CHANGED,
+        UNCHANGED,
+        STALE
+    }
+
+    private static final int VALUES_PER_SENSOR = 3;
+    private static final int INDEX_THRESHOLD = 16;
+
+    private static final byte CLIMATE = 1;
+    private static final byte LIGHT = 2;
+    private static final byte MOTION = 3;
+    private static final byte SWITCH = 4;
+    private static final byte TEMPERATURE = 5;
+
+    private final String hubId;
+    private long timestamp;
+    private int size;
+    private String[] sensorIds = new String[4];
+    private long[] timestamps = new long[4];
+    private byte[] types = new byte[4];
+    private int[] values = new int[4 * VALUES_PER_SENSOR];
+    private Map<String, Integer> index;
+
+    CompactHubState(String hubId) {
+        this.hubId = hubId;
+    }
+
+    String hubId() {
+        return hubId;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Change apply(String sensorId, long eventTimestamp, Object payload) {
+        int slot = indexOf(sensorId);
+        if (slot >= 0 && eventTimestamp < timestamps[slot]) {
+            return Change.STALE;
+        }
+
+        byte type;
+        int first = 0;
+        int second = 0;
+        int third = 0;
+        switch (payload) {
+            case ClimateSensorAvro climate -> {
+                type = CLIMATE;
+                first = climate.getTemperatureC();
+                second = climate.getHumidity();
+                third = climate.getCo2Level();
+            }
+            case LightSensorAvro light -> {
+                type = LIGHT;
+                first = light.getLinkQuality();
+                second = light.getLuminosity();
+            }
+            case MotionSensorAvro motion -> {
+                type = MOTION;
+                first = motion.getLinkQuality();
+                second = motion.getMotion() ? 1 : 0;
+                third = motion.getVoltage();
+            }
+            case SwitchSensorAvro switchSensor -> {
+                type = SWITCH;
+                first = switchSensor.getState() ? 1 : 0;
+            }
+            case TemperatureSensorAvro temperature -> {
+                type = TEMPERATURE;
+                first = temperature.getTemperatureC();
+                second = temperature.getTemperatureF();
+            }
+            default -> throw new IllegalArgumentException("Неизвестный тип данных датчика: " + payload.getClass());
+        }
+
+        Change change;
+        if (slot < 0) {
+            slot = add(sensorId);
+            change = Change.NEW;
+        } else {
+            int base = slot * VALUES_PER_SENSOR;
+            if (types[slot] == type && values[base] == first && values[base + 1] == second
+                    && values[base + 2] == third) {
+                return Change.UNCHANGED;
+            }
+            change = Change.CHANGED;
+        }
+
+        int base = slot * VALUES_PER_SENSOR;
+        types[slot] = type;
+        values[base] = first;
+        values[base + 1] = second;
+        values[base + 2] = third;
+        timestamps[slot] = eventTimestamp;
+        timestamp = eventTimestamp;
+        return change;
+    }
+
+    SensorsSnapshotAvro toAvro() {
+        Map<String, SensorStateAvro> sensorsState = HashMap.newHashMap(size);
+        for (int slot = 0; slot < size; slot++) {
+            sensorsState.put(sensorIds[slot],
+                    new SensorStateAvro(Instant.ofEpochMilli(timestamps[slot]), payloadAt(slot)));
+        }
+        return new SensorsSnapshotAvro(hubId, Instant.ofEpochMilli(timestamp), sensorsState);
+    }
+
+    static CompactHubState fromAvro(SensorsSnapshotAvro snapshot) {
+        CompactHubState state = new CompactHubState(snapshot.getHubId());
+        snapshot.getSensorsState().forEach((sensorId, sensorState) ->
+                state.apply(sensorId, sensorState.getTimestamp().toEpochMilli(), sensorState.getData()));
+        state.timestamp = snapshot.getTimestamp().toEpochMilli();
+        return state;
+    }
+
+    private Object payloadAt(int slot) {
+        int base = slot * VALUES_PER_SENSOR;
+        return switch (types[slot]) {
+            case CLIMATE -> new ClimateSensorAvro(values[base], values[base + 1], values[base + 2]);
+            case LIGHT -> new LightSensorAvro(values[base], values[base + 1]);
+            case MOTION -> new MotionSensorAvro(values[base], values[base + 1] != 0, values[base + 2]);
+            case SWITCH -> new SwitchSensorAvro(values[base] != 0);
+            case TEMPERATURE -> new TemperatureSensorAvro(values[base], values[base + 1]);
+            default -> throw new IllegalStateException("Неизвестный тип датчика в слоте: " + types[slot]);
+        };
+    }
+
+    private int indexOf(String sensorId) {
+        if (index != null) {
+            Integer slot = index.get(sensorId);
+            return slot != null ? slot : -1;
+        }
+        for (int slot = 0; slot < size; slot++) {
+            if (sensorIds[slot].equals(sensorId)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int add(String sensorId) {
+        if (size == sensorIds.length) {
+            int capacity = size * 2;
+            sensorIds = Arrays.copyOf(sensorIds, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            types = Arrays.copyOf(types, capacity);
+            values = Arrays.copyOf(values, capacity * VALUES_PER_SENSOR);
+        }
+        int slot = size++;
+        sensorIds[slot] = sensorId;
+        if (index != null) {
+            index.put(sensorId, slot);
+        } else if (size > INDEX_THRESHOLD) {
+            index = HashMap.newHashMap(size * 2);
+            for (int i = 0; i < size; i++) {
+                index.put(sensorIds[i], i);
+            }
+        }
+        return slot;
+    }
+}
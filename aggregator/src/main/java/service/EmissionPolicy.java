@@ -0,0 +1,188 @@
+package service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+class EmissionPolicy {
+
+    private final KafkaProducer<String, Object> producer;
+    private final CheckpointCoordinator checkpoints;
+    private final CoalescingMode coalescingMode;
+    private final long coalescingWindowMs;
+    private final SnapshotFormat snapshotFormat;
+    private final int fullSnapshotEvery;
+    private final long fullSnapshotIntervalMs;
+    private final boolean snapshotCacheEnabled;
+    private final String snapshotsTopic;
+    private final String snapshotDeltasTopic;
+    private final LongAdder snapshotUpdates = new LongAdder();
+    private final LongAdder snapshotsSent = new LongAdder();
+    private long nextCoalescingFlush;
+    private long nextFullRefresh;
+
+    EmissionPolicy(KafkaProducer<String, Object> producer,
+                   CheckpointCoordinator checkpoints,
+                   @Value("${app.aggregation.coalescing.mode:NONE}") CoalescingMode coalescingMode,
+                   @Value("${app.aggregation.coalescing.window:500ms}") Duration coalescingWindow,
+                   @Value("${app.aggregation.snapshot-format:FULL}") SnapshotFormat snapshotFormat,
+                   @Value("${app.aggregation.full-snapshot-every:50}") int fullSnapshotEvery,
+                   @Value("${app.aggregation.full-snapshot-interval:5m}") Duration fullSnapshotInterval,
+                   @Value("${app.aggregation.snapshot-cache.enabled:false}") boolean snapshotCacheEnabled,
+                   @Value("${app.kafka.topic.snapshots}") String snapshotsTopic,
+                   @Value("${app.kafka.topic.snapshot-deltas:telemetry.snapshot-deltas.v1}") String snapshotDeltasTopic) {
+        this.producer = producer;
+        this.checkpoints = checkpoints;
+        this.coalescingMode = coalescingMode;
+        this.coalescingWindowMs = coalescingWindow.toMillis();
+        this.snapshotFormat = snapshotFormat;
+        this.fullSnapshotEvery = fullSnapshotEvery;
+        this.fullSnapshotIntervalMs = fullSnapshotInterval.toMillis();
+        this.snapshotCacheEnabled = snapshotCacheEnabled;
+        this.snapshotsTopic = snapshotsTopic;
+        this.snapshotDeltasTopic = snapshotDeltasTopic;
+        long now = System.currentTimeMillis();
+        this.nextCoalescingFlush = now + coalescingWindowMs;
+        this.nextFullRefresh = now + fullSnapshotRefreshPeriod();
+    }
+
+    void configure(AggregationService service) {
+        if (snapshotFormat == SnapshotFormat.DELTA) {
+            service.enableDeltas(fullSnapshotEvery, fullSnapshotIntervalMs);
+        }
+        if (snapshotCacheEnabled) {
+            service.enableSnapshotCache();
+        }
+    }
+
+    // Вызывается в потоке шарда сразу после изменения снапшота хаба
+    void updated(AggregationService service, String hubId, boolean logEvent) {
+        snapshotUpdates.increment();
+        if (coalescingMode != CoalescingMode.NONE) {
+            service.defer(hubId);
+            return;
+        }
+        if (logEvent) {
+            log.info("Отправляем обновленный снапшот для хаба: {}", hubId);
+        }
+        send(service, service.snapshotOf(hubId));
+    }
+
+    // Без окна отложенные снапшоты уходят после каждого опроса, с окном — раз в окно
+    boolean flushDue() {
+        if (coalescingMode != CoalescingMode.WINDOW) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextCoalescingFlush) {
+            return false;
+        }
+        nextCoalescingFlush = now + coalescingWindowMs;
+        return true;
+    }
+
+    void flush(AggregationShards shards) {
+        if (coalescingMode != CoalescingMode.NONE) {
+            shards.forEach(shard -> shard.drainPending(snapshot -> send(shard, snapshot)));
+        }
+    }
+
+    void refreshIfDue(AggregationShards shards) {
+        if (!fullSnapshotRefreshEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextFullRefresh) {
+            return;
+        }
+        nextFullRefresh = now + fullSnapshotRefreshPeriod();
+        shards.forEach(shard -> shard.refreshFullSnapshots(now, snapshot -> send(shard, snapshot)));
+    }
+
+    void report(AggregationShards shards) {
+        reportCoalescing();
+        reportSnapshotCache(shards);
+    }
+
+    private void send(AggregationService service, SensorsSnapshotAvro snapshot) {
+        if (snapshotFormat == SnapshotFormat.DELTA) {
+            producer.send(new ProducerRecord<>(snapshotDeltasTopic, snapshot.getHubId(), service.takeDelta(snapshot)),
+                    checkpoints.track());
+        } else {
+            Object value = snapshotCacheEnabled ? service.encode(snapshot) : snapshot;
+            producer.send(new ProducerRecord<>(snapshotsTopic, snapshot.getHubId(), value), checkpoints.track());
+        }
+        snapshotsSent.increment();
+    }
+
+    private boolean fullSnapshotRefreshEnabled() {
+        return snapshotFormat == SnapshotFormat.DELTA && fullSnapshotIntervalMs > 0;
+    }
+
+    // Проверяем чаще самого интервала, чтобы полный снимок запаздывал не больше чем на десятую его часть
+    private long fullSnapshotRefreshPeriod() {
+        return Math.max(1000, fullSnapshotIntervalMs / 10);
+    }
+
+    private void reportCoalescing() {
+        if (coalescingMode == CoalescingMode.NONE) {
+            return;
+        }
+        long updates = snapshotUpdates.sum();
+        long sent = snapshotsSent.sum();
+        // Средний размер берём только по топику снапшотов: общий record-size-avg продюсера
+        // смешивает их с записями changelog. Это байты пачек на проводе, поэтому оценка приблизительная.
+        String topic = snapshotFormat == SnapshotFormat.DELTA ? snapshotDeltasTopic : snapshotsTopic;
+        double topicBytes = topicMetric(topic, "byte-total");
+        double topicRecords = topicMetric(topic, "record-send-total");
+        long saved = Double.isNaN(topicBytes) || Double.isNaN(topicRecords) || topicRecords == 0
+                ? 0
+                : (long) ((updates - sent) * (topicBytes / topicRecords));
+        log.info("Объединение снапшотов: изменений={}, отправлено={}, сокращение={}%, сэкономлено ~{} байт в {}",
+                updates, sent,
+                updates == 0 ? 0 : (updates - sent) * 100 / updates,
+                saved, topic);
+    }
+
+    private void reportSnapshotCache(AggregationShards shards) {
+        if (!snapshotCacheEnabled) {
+            return;
+        }
+        long[] totals = new long[3];
+        Consumer<AggregationService> collector = service -> {
+            synchronized (totals) {
+                totals[0] += service.snapshotEncoder().getCachedHubs();
+                totals[1] += service.snapshotEncoder().getSegmentsReused();
+                totals[2] += service.snapshotEncoder().getSegmentsEncoded();
+            }
+        };
+        shards.forEach(collector);
+        long segments = totals[1] + totals[2];
+        log.info("Кэш сериализации снапшотов: хабов={}, датчиков из кэша={}, перекодировано={}, попаданий={}%",
+                totals[0], totals[1], totals[2], segments == 0 ? 0 : totals[1] * 100 / segments);
+    }
+
+    private double topicMetric(String topic, String name) {
+        for (Map.Entry<MetricName, ? extends Metric> entry : producer.metrics().entrySet()) {
+            MetricName metricName = entry.getKey();
+            if (metricName.name().equals(name) && metricName.group().equals("producer-topic-metrics")
+                    && topic.equals(metricName.tags().get("topic"))) {
+                Object value = entry.getValue().metricValue();
+                return value instanceof Double d ? d : Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+}
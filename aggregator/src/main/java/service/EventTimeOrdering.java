@@ -0,0 +1,70 @@
+package service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+class EventTimeOrdering {
+
+    private final boolean enabled;
+    private final long maxDelayMs;
+    private final int maxBufferedPerHub;
+
+    EventTimeOrdering(@Value("${app.aggregation.event-time.enabled:false}") boolean enabled,
+                      @Value("${app.aggregation.event-time.max-delay:2s}") Duration maxDelay,
+                      @Value("${app.aggregation.event-time.max-buffered-per-hub:64}") int maxBufferedPerHub) {
+        this.enabled = enabled;
+        this.maxDelayMs = maxDelay.toMillis();
+        this.maxBufferedPerHub = maxBufferedPerHub;
+    }
+
+    void configure(AggregationService service) {
+        if (enabled) {
+            service.enableEventTime(maxDelayMs, maxBufferedPerHub);
+        }
+    }
+
+    void releaseDue(AggregationShards shards, ShardedAggregation.RecordHandler handler) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        shards.forEach(shard -> shard.reorderBuffer().releaseDue(now, ready -> handler.handle(shard, ready)));
+    }
+
+    // Смещения буферизованных событий не фиксируются: после рестарта они будут прочитаны заново
+    Map<TopicPartition, Long> holdback(AggregationShards shards) {
+        if (!enabled) {
+            return Map.of();
+        }
+        Map<TopicPartition, Long> holdback = new ConcurrentHashMap<>();
+        shards.forEach(shard -> shard.reorderBuffer().holdback(holdback));
+        return holdback;
+    }
+
+    void report(AggregationShards shards) {
+        if (!enabled) {
+            return;
+        }
+        long[] totals = new long[3];
+        Consumer<AggregationService> collector = service -> {
+            synchronized (totals) {
+                totals[0] += service.reorderBuffer().getBuffered();
+                totals[1] += service.reorderBuffer().getReorderedCount();
+                totals[2] += service.reorderBuffer().getLateCount();
+            }
+        };
+        shards.forEach(collector);
+        log.info("Упорядочивание по времени события: в буфере={}, переупорядочено опоздавших={}, "
+                        + "пропущено без упорядочивания за водяным знаком={}",
+                totals[0], totals[1], totals[2]);
+    }
+}
@@ -0,0 +1,67 @@
+package service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@Slf4j
+@RequiredArgsConstructor
+class HubPartitionTracker implements ConsumerRebalanceListener {
+
+    private final KafkaProducer<String, Object> producer;
+    private final Consumer<Collection<String>> evictor;
+    private final Runnable pendingFlusher;
+    private final Runnable offsetCommitter;
+    private final Consumer<Collection<TopicPartition>> assignedHandler;
+
+    private final Map<String, TopicPartition> partitionByHub = new HashMap<>();
+
+    void track(String hubId, String topic, int partition) {
+        TopicPartition current = partitionByHub.get(hubId);
+        if (current == null || current.partition() != partition || !current.topic().equals(topic)) {
+            partitionByHub.put(hubId, new TopicPartition(topic, partition));
+        }
+    }
+
+    void forget(Collection<String> hubIds) {
+        hubIds.forEach(partitionByHub::remove);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        pendingFlusher.run();
+        producer.flush();
+        offsetCommitter.run();
+
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, TopicPartition>> iterator = partitionByHub.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, TopicPartition> entry = iterator.next();
+            if (partitions.contains(entry.getValue())) {
+                evicted.add(entry.getKey());
+                iterator.remove();
+            }
+        }
+        evictor.accept(evicted);
+        log.info("Отозваны партиции {}, удалены снапшоты хабов: {}", partitions, evicted.size());
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        log.info("Назначены партиции: {}", partitions);
+        assignedHandler.accept(partitions);
+    }
+}
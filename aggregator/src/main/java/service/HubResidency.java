@@ -0,0 +1,83 @@
+package service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+class HubResidency {
+
+    private final long idleTtlMs;
+    private final int maxResidentHubs;
+    private final long checkIntervalMs;
+    private final Path spillDirectory;
+    private long nextCheck;
+
+    HubResidency(@Value("${app.aggregation.residency.idle-ttl:0s}") Duration idleTtl,
+                 @Value("${app.aggregation.residency.max-hubs:0}") int maxResidentHubs,
+                 @Value("${app.aggregation.residency.check-interval:10s}") Duration checkInterval,
+                 @Value("${app.aggregation.residency.spill-directory:${java.io.tmpdir}/aggregator-spill}")
+                 Path spillDirectory) {
+        this.idleTtlMs = idleTtl.toMillis();
+        this.maxResidentHubs = maxResidentHubs;
+        this.checkIntervalMs = checkInterval.toMillis();
+        this.spillDirectory = spillDirectory;
+        this.nextCheck = System.currentTimeMillis() + checkIntervalMs;
+    }
+
+    void configure(AggregationService service, int shardIndex) {
+        if (isLimited()) {
+            service.enableResidencyLimits(idleTtlMs, maxResidentHubs, spillDirectory.resolve("shard-" + shardIndex));
+        }
+    }
+
+    // Возвращает хабы, удалённые по TTL: вызывающий убирает их из трекера партиций и стора
+    List<String> enforceIfDue(AggregationShards shards) {
+        if (!isLimited()) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextCheck) {
+            return List.of();
+        }
+        nextCheck = now + checkIntervalMs;
+
+        List<String> expired = new CopyOnWriteArrayList<>();
+        shards.forEach(shard -> expired.addAll(shard.enforceResidency(now)));
+        if (!expired.isEmpty()) {
+            log.info("Удалены простаивающие хабы: {}", expired.size());
+        }
+        return expired;
+    }
+
+    void report(AggregationShards shards) {
+        if (!isLimited()) {
+            return;
+        }
+        long[] totals = new long[5];
+        Consumer<AggregationService> collector = service -> {
+            synchronized (totals) {
+                totals[0] += service.getResidentHubs();
+                totals[1] += service.getSpilledHubs();
+                totals[2] += service.getExpiredCount();
+                totals[3] += service.getSpilledCount();
+                totals[4] += service.getRehydratedCount();
+            }
+        };
+        shards.forEach(collector);
+        log.info("Резидентность хабов: в памяти={}, вытеснено на диск={}, удалено по TTL={}, "
+                        + "вытеснений={}, возвращено с диска={}",
+                totals[0], totals[1], totals[2], totals[3], totals[4]);
+    }
+
+    private boolean isLimited() {
+        return idleTtlMs > 0 || maxResidentHubs > 0;
+    }
+}
@@ -0,0 +1,101 @@
+package service;
+
+import kafka.BaseAvroDeserializer;
+import kafka.SensorsSnapshotSerializer;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+@Slf4j
+final class HubSpillStore {
+
+    private static final String SPILL_SUFFIX = ".spill";
+
+    private final Path directory;
+    private final Set<String> hubIds = new HashSet<>();
+    private final SensorsSnapshotSerializer serializer = new SensorsSnapshotSerializer();
+    private final BaseAvroDeserializer<SensorsSnapshotAvro> deserializer =
+            new BaseAvroDeserializer<>(SensorsSnapshotAvro.getClassSchema());
+
+    HubSpillStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            List<Path> stale;
+            try (Stream<Path> listing = Files.list(directory)) {
+                stale = listing.filter(path -> path.getFileName().toString().endsWith(SPILL_SUFFIX)).toList();
+            }
+            for (Path path : stale) {
+                Files.delete(path);
+            }
+            if (!stale.isEmpty()) {
+                log.info("Удалены вытесненные снапшоты прошлого запуска: {}", stale.size());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось подготовить каталог вытеснения " + directory, e);
+        }
+    }
+
+    boolean contains(String hubId) {
+        return hubIds.contains(hubId);
+    }
+
+    int size() {
+        return hubIds.size();
+    }
+
+    void write(SensorsSnapshotAvro snapshot) {
+        try {
+            Files.write(pathOf(snapshot.getHubId()), serializer.serialize(null, snapshot));
+            hubIds.add(snapshot.getHubId());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось вытеснить снапшот хаба " + snapshot.getHubId(), e);
+        }
+    }
+
+    SensorsSnapshotAvro take(String hubId) {
+        SensorsSnapshotAvro snapshot = read(hubId);
+        remove(hubId);
+        return snapshot;
+    }
+
+    void remove(String hubId) {
+        if (!hubIds.remove(hubId)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(pathOf(hubId));
+        } catch (IOException e) {
+            log.warn("Не удалось удалить вытесненный снапшот хаба {}", hubId, e);
+        }
+    }
+
+    void forEach(BiConsumer<String, SensorsSnapshotAvro> sink) {
+        for (String hubId : hubIds) {
+            sink.accept(hubId, read(hubId));
+        }
+    }
+
+    private SensorsSnapshotAvro read(String hubId) {
+        try {
+            return deserializer.deserialize(null, Files.readAllBytes(pathOf(hubId)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать вытесненный снапшот хаба " + hubId, e);
+        }
+    }
+
+    private Path pathOf(String hubId) {
+        return directory.resolve(HexFormat.of().formatHex(hubId.getBytes(StandardCharsets.UTF_8)) + SPILL_SUFFIX);
+    }
+}
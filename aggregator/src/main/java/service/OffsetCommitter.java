@@ -0,0 +1,146 @@
+package service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+class OffsetCommitter {
+
+    private final KafkaConsumer<String, ?> consumer;
+    private final long intervalMs;
+    private final Deque<PendingBatch> sealed = new ArrayDeque<>();
+    private final Map<TopicPartition, Long> committed = new ConcurrentHashMap<>();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder commitFailures = new LongAdder();
+    // track() вызывают потоки шардов, seal() — поток опроса, пока шарды простаивают
+    private volatile PendingBatch open = new PendingBatch();
+    private long nextCommit;
+    private volatile long lastCommitMillis = System.currentTimeMillis();
+
+    OffsetCommitter(KafkaConsumer<String, ?> consumer, long intervalMs) {
+        this.consumer = consumer;
+        this.intervalMs = intervalMs;
+        this.nextCommit = System.currentTimeMillis() + intervalMs;
+    }
+
+    void record(ConsumerRecord<String, ?> record) {
+        open.offsets.put(new TopicPartition(record.topic(), record.partition()),
+                new OffsetAndMetadata(record.offset() + 1));
+    }
+
+    Callback track() {
+        PendingBatch batch = open;
+        batch.outstanding.incrementAndGet();
+        return (metadata, exception) -> {
+            if (exception != null) {
+                batch.failure.compareAndSet(null, exception);
+            }
+            batch.outstanding.decrementAndGet();
+        };
+    }
+
+    void seal(Map<TopicPartition, Long> holdback) {
+        if (open.offsets.isEmpty()) {
+            return;
+        }
+        holdback.forEach((partition, offset) -> open.offsets.computeIfPresent(partition,
+                (key, recorded) -> recorded.offset() > offset ? new OffsetAndMetadata(offset) : recorded));
+        sealed.addLast(open);
+        open = new PendingBatch();
+    }
+
+    void maybeCommit() {
+        long now = System.currentTimeMillis();
+        if (now < nextCommit) {
+            return;
+        }
+        nextCommit = now + intervalMs;
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        while (!sealed.isEmpty() && sealed.peekFirst().outstanding.get() == 0) {
+            ensureAcked(sealed.peekFirst());
+            offsets.putAll(sealed.pollFirst().offsets);
+        }
+        if (offsets.isEmpty()) {
+            return;
+        }
+        consumer.commitAsync(offsets, (result, exception) -> {
+            if (exception != null) {
+                commitFailures.increment();
+                log.warn("Не удалось асинхронно зафиксировать смещения {}", result, exception);
+                return;
+            }
+            markCommitted(result);
+        });
+    }
+
+    void markCommitted(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((partition, offset) -> committed.merge(partition, offset.offset(), Math::max));
+        commits.increment();
+        lastCommitMillis = System.currentTimeMillis();
+    }
+
+    void verifyAcked() {
+        ensureAcked(open);
+        sealed.forEach(OffsetCommitter::ensureAcked);
+    }
+
+    void committedAll(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        open = new PendingBatch();
+        sealed.clear();
+        markCommitted(offsets);
+    }
+
+    long commitLag() {
+        long lag = 0;
+        for (TopicPartition partition : consumer.assignment()) {
+            Long offset = committed.get(partition);
+            if (offset != null) {
+                lag += Math.max(0, consumer.position(partition) - offset);
+            }
+        }
+        return lag;
+    }
+
+    long getPendingBatches() {
+        return sealed.size();
+    }
+
+    long getCommitCount() {
+        return commits.sum();
+    }
+
+    long getCommitFailures() {
+        return commitFailures.sum();
+    }
+
+    long getMillisSinceLastCommit() {
+        return System.currentTimeMillis() - lastCommitMillis;
+    }
+
+    private static void ensureAcked(PendingBatch batch) {
+        if (batch.failure.get() != null) {
+            throw new IllegalStateException("Снапшот не подтверждён брокером, смещения не фиксируются",
+                    batch.failure.get());
+        }
+    }
+
+    private static final class PendingBatch {
+        private final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+    }
+}
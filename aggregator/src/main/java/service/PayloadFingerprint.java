@@ -0,0 +1,30 @@
+package service;
+
+import ru.yandex.practicum.kafka.telemetry.event.ClimateSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.LightSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.MotionSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SwitchSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.TemperatureSensorAvro;
+
+// Все поля датчиков — int/boolean, поэтому тип и до трёх значений без потерь укладываются в два long.
+record PayloadFingerprint(long high, long low) {
+
+    static PayloadFingerprint of(Object payload) {
+        return switch (payload) {
+            case ClimateSensorAvro climate -> pack(1, climate.getTemperatureC(), climate.getHumidity(),
+                    climate.getCo2Level());
+            case LightSensorAvro light -> pack(2, light.getLinkQuality(), light.getLuminosity(), 0);
+            case MotionSensorAvro motion -> pack(3, motion.getLinkQuality(), motion.getMotion() ? 1 : 0,
+                    motion.getVoltage());
+            case SwitchSensorAvro switchSensor -> pack(4, switchSensor.getState() ? 1 : 0, 0, 0);
+            case TemperatureSensorAvro temperature -> pack(5, temperature.getTemperatureC(),
+                    temperature.getTemperatureF(), 0);
+            default -> throw new IllegalArgumentException("Неизвестный тип данных датчика: " + payload.getClass());
+        };
+    }
+
+    private static PayloadFingerprint pack(int type, int first, int second, int third) {
+        return new PayloadFingerprint(((long) type << 32) | (first & 0xFFFFFFFFL),
+                ((long) second << 32) | (third & 0xFFFFFFFFL));
+    }
+}
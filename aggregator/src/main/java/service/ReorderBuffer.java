@@ -0,0 +1,130 @@
+package service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+// Водяной знак хаба = максимальный timestamp события минус maxDelay. Событие старше уже выпущенного
+// передаётся дальше сразу, без упорядочивания: устаревшее состояние датчика отсеет сама агрегация.
+class ReorderBuffer {
+
+    private static final Comparator<Buffered> EVENT_TIME_ORDER =
+            Comparator.comparingLong(Buffered::timestamp).thenComparingLong(Buffered::sequence);
+
+    private final long maxDelayMs;
+    private final int maxEventsPerHub;
+    private final Map<String, HubBuffer> hubs = new HashMap<>();
+    private final Map<String, HubBuffer> waiting = new HashMap<>();
+    private long sequence;
+    private long buffered;
+    private long reorderedCount;
+    private long lateCount;
+
+    ReorderBuffer(long maxDelayMs, int maxEventsPerHub) {
+        this.maxDelayMs = maxDelayMs;
+        this.maxEventsPerHub = Math.max(1, maxEventsPerHub);
+    }
+
+    void offer(ConsumerRecord<String, SensorEventAvro> record, long now,
+               Consumer<ConsumerRecord<String, SensorEventAvro>> sink) {
+        String hubId = record.value().getHubId();
+        long timestamp = record.value().getTimestamp().toEpochMilli();
+        HubBuffer hub = hubs.computeIfAbsent(hubId, key -> new HubBuffer());
+
+        if (timestamp < hub.released) {
+            lateCount++;
+            sink.accept(record);
+            return;
+        }
+        if (timestamp < hub.maxTimestamp) {
+            reorderedCount++;
+        }
+        hub.maxTimestamp = Math.max(hub.maxTimestamp, timestamp);
+        hub.lastArrival = now;
+        hub.queue.add(new Buffered(record, timestamp, now, sequence++));
+        buffered++;
+
+        long watermark = hub.maxTimestamp - maxDelayMs;
+        while (!hub.queue.isEmpty()
+                && (hub.queue.peek().timestamp() <= watermark || hub.queue.size() > maxEventsPerHub)) {
+            release(hub, sink);
+        }
+        if (hub.queue.isEmpty()) {
+            waiting.remove(hubId);
+        } else {
+            waiting.put(hubId, hub);
+        }
+    }
+
+    void releaseDue(long now, Consumer<ConsumerRecord<String, SensorEventAvro>> sink) {
+        Iterator<HubBuffer> iterator = waiting.values().iterator();
+        while (iterator.hasNext()) {
+            HubBuffer hub = iterator.next();
+            while (!hub.queue.isEmpty()
+                    && (now - hub.lastArrival >= maxDelayMs || now - hub.queue.peek().arrivedAt() >= maxDelayMs)) {
+                release(hub, sink);
+            }
+            if (hub.queue.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    void holdback(Map<TopicPartition, Long> offsets) {
+        for (HubBuffer hub : waiting.values()) {
+            for (Buffered entry : hub.queue) {
+                ConsumerRecord<String, SensorEventAvro> record = entry.record();
+                offsets.merge(new TopicPartition(record.topic(), record.partition()), record.offset(), Math::min);
+            }
+        }
+    }
+
+    boolean isBuffering(String hubId) {
+        return waiting.containsKey(hubId);
+    }
+
+    void evict(String hubId) {
+        HubBuffer hub = hubs.remove(hubId);
+        waiting.remove(hubId);
+        if (hub != null) {
+            buffered -= hub.queue.size();
+        }
+    }
+
+    long getBuffered() {
+        return buffered;
+    }
+
+    long getReorderedCount() {
+        return reorderedCount;
+    }
+
+    long getLateCount() {
+        return lateCount;
+    }
+
+    private void release(HubBuffer hub, Consumer<ConsumerRecord<String, SensorEventAvro>> sink) {
+        Buffered entry = hub.queue.poll();
+        buffered--;
+        hub.released = entry.timestamp();
+        sink.accept(entry.record());
+    }
+
+    private record Buffered(ConsumerRecord<String, SensorEventAvro> record, long timestamp, long arrivedAt,
+                            long sequence) {
+    }
+
+    private static final class HubBuffer {
+        private final PriorityQueue<Buffered> queue = new PriorityQueue<>(EVENT_TIME_ORDER);
+        private long maxTimestamp = Long.MIN_VALUE;
+        private long released = Long.MIN_VALUE;
+        private long lastArrival;
+    }
+}
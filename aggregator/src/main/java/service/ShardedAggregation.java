@@ -0,0 +1,121 @@
+package service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+@Slf4j
+public class ShardedAggregation implements AutoCloseable {
+
+    private final AggregationService[] shards;
+    private final ExecutorService[] workers;
+    private final List<List<ConsumerRecord<String, SensorEventAvro>>> buffers;
+    private final List<Future<?>> pending;
+    private final RecordHandler handler;
+
+    public ShardedAggregation(int workerCount, Supplier<AggregationService> shardFactory, RecordHandler handler) {
+        this.shards = new AggregationService[workerCount];
+        this.workers = new ExecutorService[workerCount];
+        this.buffers = new ArrayList<>(workerCount);
+        this.pending = new ArrayList<>(workerCount);
+        this.handler = handler;
+        for (int i = 0; i < workerCount; i++) {
+            shards[i] = shardFactory.get();
+            workers[i] = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("aggregation-shard-" + i).factory());
+            buffers.add(new ArrayList<>());
+        }
+        log.info("Запущена шардированная агрегация: потоков={}", workerCount);
+    }
+
+    public void process(Iterable<ConsumerRecord<String, SensorEventAvro>> records) {
+        for (ConsumerRecord<String, SensorEventAvro> record : records) {
+            buffers.get(shardOf(record.value().getHubId())).add(record);
+        }
+
+        for (int i = 0; i < shards.length; i++) {
+            List<ConsumerRecord<String, SensorEventAvro>> batch = buffers.get(i);
+            if (!batch.isEmpty()) {
+                AggregationService shard = shards[i];
+                pending.add(workers[i].submit(() -> {
+                    for (ConsumerRecord<String, SensorEventAvro> record : batch) {
+                        handler.handle(shard, record);
+                    }
+                }));
+            }
+        }
+
+        try {
+            awaitPending();
+        } finally {
+            buffers.forEach(List::clear);
+        }
+    }
+
+    public void runOnShards(Consumer<AggregationService> task) {
+        for (int i = 0; i < shards.length; i++) {
+            AggregationService shard = shards[i];
+            pending.add(workers[i].submit(() -> task.accept(shard)));
+        }
+        awaitPending();
+    }
+
+    public void restore(SensorsSnapshotAvro snapshot) {
+        shards[shardOf(snapshot.getHubId())].restore(snapshot);
+    }
+
+    public void evict(Collection<String> hubIds) {
+        for (String hubId : hubIds) {
+            shards[shardOf(hubId)].evict(List.of(hubId));
+        }
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+        try {
+            for (ExecutorService worker : workers) {
+                worker.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitPending() {
+        try {
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Прервано ожидание обработчиков шардов", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка в обработчике шарда", e.getCause());
+        } finally {
+            pending.clear();
+        }
+    }
+
+    private int shardOf(String hubId) {
+        return Math.floorMod(hubId.hashCode(), shards.length);
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void handle(AggregationService shard, ConsumerRecord<String, SensorEventAvro> record);
+    }
+}
@@ -0,0 +1,6 @@
+package service;
+
+public enum SnapshotFormat {
+    FULL,
+    DELTA
+}
@@ -0,0 +1,268 @@
+package service;
+
+import kafka.BaseAvroDeserializer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+@Slf4j
+@Component
+public class SnapshotStateStore {
+
+    private static final String LOG_FILE = "snapshots.log";
+    private static final int FRAME_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long compactBytes;
+    private final String bootstrapServers;
+    private final BaseAvroDeserializer<SensorsSnapshotAvro> deserializer =
+            new BaseAvroDeserializer<>(SensorsSnapshotAvro.getClassSchema());
+    private final Set<String> removedHubs = new HashSet<>();
+    private FileChannel channel;
+    private long logBytes;
+
+    public SnapshotStateStore(@Value("${app.state-store.enabled:false}") boolean enabled,
+                              @Value("${app.state-store.directory:${java.io.tmpdir}/aggregator-state}") Path directory,
+                              @Value("${app.state-store.compact-bytes:67108864}") long compactBytes,
+                              @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.compactBytes = compactBytes;
+        this.bootstrapServers = bootstrapServers;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized RestoredState load() {
+        Map<String, SensorsSnapshotAvro> snapshots = new HashMap<>();
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        Path file = directory.resolve(LOG_FILE);
+        try {
+            Files.createDirectories(directory);
+            long validBytes = 0;
+            if (Files.exists(file)) {
+                try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = reader.map(FileChannel.MapMode.READ_ONLY, 0, reader.size());
+                    validBytes = readFrames(buffer, snapshots, offsets);
+                }
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.size() > validBytes) {
+                log.warn("Хранилище состояния обрезано до последнего целого чекпоинта: {} -> {} байт",
+                        channel.size(), validBytes);
+                channel.truncate(validBytes);
+            }
+            channel.position(validBytes);
+            logBytes = validBytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть хранилище состояния " + directory, e);
+        }
+        log.info("Восстановлено состояние из {}: хабов={}, смещений={}", file, snapshots.size(), offsets.size());
+        return new RestoredState(snapshots, offsets);
+    }
+
+    public Map<String, SensorsSnapshotAvro> restoreFromChangelog(String changelogTopic) {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+
+        Map<String, SensorsSnapshotAvro> snapshots = new HashMap<>();
+        try (KafkaConsumer<String, byte[]> restorer = new KafkaConsumer<>(props)) {
+            List<PartitionInfo> infos = restorer.partitionsFor(changelogTopic);
+            if (infos == null || infos.isEmpty()) {
+                log.info("Топик журнала изменений {} не найден, восстанавливать нечего", changelogTopic);
+                return snapshots;
+            }
+            List<TopicPartition> partitions = infos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            restorer.assign(partitions);
+            restorer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = restorer.endOffsets(partitions);
+
+            while (partitions.stream().anyMatch(tp -> restorer.position(tp) < endOffsets.get(tp))) {
+                for (ConsumerRecord<String, byte[]> record : restorer.poll(Duration.ofMillis(500))) {
+                    if (record.value() == null) {
+                        snapshots.remove(record.key());
+                    } else {
+                        snapshots.put(record.key(), deserializer.deserialize(changelogTopic, record.value()));
+                    }
+                }
+            }
+        }
+        log.info("Состояние восстановлено из журнала изменений {}: хабов={}", changelogTopic, snapshots.size());
+        return snapshots;
+    }
+
+    public synchronized void markRemoved(Collection<String> hubIds) {
+        if (enabled) {
+            removedHubs.addAll(hubIds);
+        }
+    }
+
+    public synchronized boolean needsCompaction() {
+        return logBytes >= compactBytes;
+    }
+
+    public synchronized void checkpoint(Map<String, byte[]> snapshots, Map<TopicPartition, Long> offsets,
+                                        boolean full) throws IOException {
+        ByteBuffer frame = encodeFrame(snapshots, full ? Set.of() : removedHubs, offsets);
+        if (full) {
+            Path file = directory.resolve(LOG_FILE);
+            Path compacted = directory.resolve(LOG_FILE + ".compact");
+            try (FileChannel writer = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(writer, frame);
+                writer.force(true);
+            }
+            channel.close();
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            logBytes = channel.size();
+            channel.position(logBytes);
+            log.info("Хранилище состояния сжато: хабов={}, размер={} байт", snapshots.size(), logBytes);
+        } else {
+            logBytes += frame.remaining();
+            writeFully(channel, frame);
+            channel.force(false);
+        }
+        removedHubs.clear();
+    }
+
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Ошибка при закрытии хранилища состояния", e);
+        }
+    }
+
+    private long readFrames(ByteBuffer buffer, Map<String, SensorsSnapshotAvro> snapshots,
+                            Map<TopicPartition, Long> offsets) {
+        CRC32 crc = new CRC32();
+        int position = 0;
+        while (buffer.limit() - position >= FRAME_HEADER_BYTES) {
+            int length = buffer.getInt(position);
+            long checksum = buffer.getLong(position + Integer.BYTES);
+            int start = position + FRAME_HEADER_BYTES;
+            if (length <= 0 || buffer.limit() - start < length) {
+                break;
+            }
+            ByteBuffer payload = buffer.slice(start, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if (crc.getValue() != checksum) {
+                break;
+            }
+
+            offsets.clear();
+            int offsetCount = payload.getInt();
+            for (int i = 0; i < offsetCount; i++) {
+                TopicPartition partition = new TopicPartition(readString(payload), payload.getInt());
+                offsets.put(partition, payload.getLong());
+            }
+            int removedCount = payload.getInt();
+            for (int i = 0; i < removedCount; i++) {
+                snapshots.remove(readString(payload));
+            }
+            int snapshotCount = payload.getInt();
+            for (int i = 0; i < snapshotCount; i++) {
+                String hubId = readString(payload);
+                byte[] data = new byte[payload.getInt()];
+                payload.get(data);
+                snapshots.put(hubId, deserializer.deserialize(LOG_FILE, data));
+            }
+            position = start + length;
+        }
+        return position;
+    }
+
+    private static ByteBuffer encodeFrame(Map<String, byte[]> snapshots, Collection<String> removed,
+                                          Map<TopicPartition, Long> offsets) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(offsets.size());
+        for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+            writeString(out, entry.getKey().topic());
+            out.writeInt(entry.getKey().partition());
+            out.writeLong(entry.getValue());
+        }
+        out.writeInt(removed.size());
+        for (String hubId : removed) {
+            writeString(out, hubId);
+        }
+        out.writeInt(snapshots.size());
+        for (Map.Entry<String, byte[]> entry : snapshots.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue().length);
+            out.write(entry.getValue());
+        }
+        out.flush();
+
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payload.length);
+        frame.putInt(payload.length).putLong(crc.getValue()).put(payload).flip();
+        return frame;
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            target.write(frame);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public record RestoredState(Map<String, SensorsSnapshotAvro> snapshots, Map<TopicPartition, Long> offsets) {
+    }
+}
@@ -4,11 +4,15 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -18,24 +22,41 @@ public class KafkaCleanupConfig {
 
     private final AdminClient kafkaAdminClient;
 
+    @Value("${app.kafka.topic.actions:telemetry.actions.v1}")
+    private String actionsTopic;
+
+    @Value("${app.kafka.topic.sensors:telemetry.sensors.v1}")
+    private List<String> sensorsTopics;
+
+    @Value("${app.kafka.topic.snapshots}")
+    private String snapshotsTopic;
+
+    @Value("${app.kafka.topic.snapshot-deltas:telemetry.snapshot-deltas.v1}")
+    private String snapshotDeltasTopic;
+
+    @Value("${app.kafka.topic.hubs}")
+    private String hubsTopic;
+
+    @Value("${app.kafka.partitions.sensors:1}")
+    private int sensorsPartitions;
+
+    @Value("${app.kafka.partitions.snapshots:1}")
+    private int snapshotsPartitions;
+
     @EventListener(ApplicationReadyEvent.class)
     public void cleanAllKafkaTopics() {
         try {
-            String[] topicsToClean = {
-                    "telemetry.actions.v1",
-                    "telemetry.sensors.v1",
-                    "telemetry.snapshots.v1",
-                    "telemetry.hubs.v1"
-            };
-
-            for (String topic : topicsToClean) {
+            Map<String, Integer> topicsToClean = topicPartitions();
+
+            for (Map.Entry<String, Integer> entry : topicsToClean.entrySet()) {
+                String topic = entry.getKey();
                 try {
                     kafkaAdminClient.deleteTopics(Collections.singletonList(topic))
                             .all()
                             .get(10, TimeUnit.SECONDS);
                     Thread.sleep(1000);
 
-                    NewTopic newTopic = new NewTopic(topic, 1, (short) 1);
+                    NewTopic newTopic = new NewTopic(topic, entry.getValue(), (short) 1);
                     kafkaAdminClient.createTopics(Collections.singletonList(newTopic))
                             .all()
                             .get(10, TimeUnit.SECONDS);
@@ -51,4 +72,14 @@ public class KafkaCleanupConfig {
             log.warn("Ошибка очистки Kafka: {}", e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private Map<String, Integer> topicPartitions() {
+        Map<String, Integer> topics = new LinkedHashMap<>();
+        topics.put(actionsTopic, 1);
+        sensorsTopics.forEach(topic -> topics.put(topic, sensorsPartitions));
+        topics.put(snapshotsTopic, snapshotsPartitions);
+        topics.put(snapshotDeltasTopic, snapshotsPartitions);
+        topics.put(hubsTopic, 1);
+        return topics;
+    }
+}
@@ -1,15 +1,15 @@
 package config;
 
 import kafka.HubEventDeserializer;
-import kafka.SensorsSnapshotDeserializer;
+import kafka.SnapshotMessageDeserializer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import ru.yandex.practicum.kafka.telemetry.event.HubEventAvro;
-import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
 
 import java.util.Properties;
 
@@ -26,15 +26,19 @@ public class KafkaConsumerConfig {
     @Value("${app.kafka.consumer.hubs.group-id}")
     private String hubsGroupId;
 
+    @Value("${app.kafka.topic.snapshot-deltas:telemetry.snapshot-deltas.v1}")
+    private String snapshotDeltasTopic;
+
     @Bean
-    public KafkaConsumer<String, SensorsSnapshotAvro> snapshotsConsumer() {
+    public KafkaConsumer<String, SpecificRecordBase> snapshotsConsumer() {
         Properties props = new Properties();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, snapshotsGroupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
                 "org.apache.kafka.common.serialization.StringDeserializer");
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-                SensorsSnapshotDeserializer.class.getName());
+                SnapshotMessageDeserializer.class.getName());
+        props.put(SnapshotMessageDeserializer.DELTAS_TOPIC_CONFIG, snapshotDeltasTopic);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true");
 
@@ -13,6 +13,7 @@ import java.io.IOException;
 public class HubEventDeserializer implements Deserializer<HubEventAvro> {
 
     private final DatumReader<HubEventAvro> datumReader;
+    private BinaryDecoder decoder;
 
     public HubEventDeserializer() {
         this.datumReader = new SpecificDatumReader<>(HubEventAvro.class);
@@ -24,7 +25,7 @@ public class HubEventDeserializer implements Deserializer<HubEventAvro> {
             return null;
         }
         try {
-            BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(data, null);
+            decoder = DecoderFactory.get().binaryDecoder(data, decoder);
             return datumReader.read(null, decoder);
         } catch (IOException e) {
             throw new SerializationException(
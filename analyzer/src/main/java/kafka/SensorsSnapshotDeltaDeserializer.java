@@ -0,0 +1,36 @@
+package kafka;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotDeltaAvro;
+
+import java.io.IOException;
+
+public class SensorsSnapshotDeltaDeserializer implements Deserializer<SensorsSnapshotDeltaAvro> {
+
+    private final DatumReader<SensorsSnapshotDeltaAvro> datumReader;
+    private BinaryDecoder decoder;
+
+    public SensorsSnapshotDeltaDeserializer() {
+        this.datumReader = new SpecificDatumReader<>(SensorsSnapshotDeltaAvro.class);
+    }
+
+    @Override
+    public SensorsSnapshotDeltaAvro deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        try {
+            decoder = DecoderFactory.get().binaryDecoder(data, decoder);
+            return datumReader.read(null, decoder);
+        } catch (IOException e) {
+            throw new SerializationException(
+                    "Error deserializing SensorsSnapshotDeltaAvro for topic " + topic, e
+            );
+        }
+    }
+}
\ No newline at end of file
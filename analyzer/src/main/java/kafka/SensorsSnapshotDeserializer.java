@@ -13,6 +13,7 @@ import java.io.IOException;
 public class SensorsSnapshotDeserializer implements Deserializer<SensorsSnapshotAvro> {
 
     private final DatumReader<SensorsSnapshotAvro> datumReader;
+    private BinaryDecoder decoder;
 
     public SensorsSnapshotDeserializer() {
         this.datumReader = new SpecificDatumReader<>(SensorsSnapshotAvro.class);
@@ -24,7 +25,7 @@ public class SensorsSnapshotDeserializer implements Deserializer<SensorsSnapshot
             return null;
         }
         try {
-            BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(data, null);
+            decoder = DecoderFactory.get().binaryDecoder(data, decoder);
             return datumReader.read(null, decoder);
         } catch (IOException e) {
             throw new SerializationException(
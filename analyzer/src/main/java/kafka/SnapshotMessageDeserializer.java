@@ -0,0 +1,28 @@
+package kafka;
+
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+
+public class SnapshotMessageDeserializer implements Deserializer<SpecificRecordBase> {
+
+    public static final String DELTAS_TOPIC_CONFIG = "snapshot.deltas.topic";
+
+    private final SensorsSnapshotDeserializer snapshotDeserializer = new SensorsSnapshotDeserializer();
+    private final SensorsSnapshotDeltaDeserializer deltaDeserializer = new SensorsSnapshotDeltaDeserializer();
+    private String deltasTopic;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object topic = configs.get(DELTAS_TOPIC_CONFIG);
+        deltasTopic = topic != null ? topic.toString() : null;
+    }
+
+    @Override
+    public SpecificRecordBase deserialize(String topic, byte[] data) {
+        return topic.equals(deltasTopic)
+                ? deltaDeserializer.deserialize(topic, data)
+                : snapshotDeserializer.deserialize(topic, data);
+    }
+}
@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import model.Scenario;
 import model.ScenarioAction;
+import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
@@ -12,6 +13,7 @@ import org.apache.kafka.common.errors.WakeupException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotDeltaAvro;
 import service.ActionExecutor;
 import service.ConditionChecker;
 import service.ScenarioService;
@@ -26,7 +28,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @RequiredArgsConstructor
 public class SnapshotProcessor {
 
-    private final KafkaConsumer<String, SensorsSnapshotAvro> consumer;
+    private final KafkaConsumer<String, SpecificRecordBase> consumer;
     private final ScenarioService scenarioService;
     private final ConditionChecker conditionChecker;
     private final ActionExecutor actionExecutor;
@@ -34,6 +36,14 @@ public class SnapshotProcessor {
     @Value("${app.kafka.topic.snapshots}")
     private String snapshotsTopic;
 
+    @Value("${app.kafka.topic.snapshot-deltas:telemetry.snapshot-deltas.v1}")
+    private String snapshotDeltasTopic;
+
+    @Value("${app.kafka.snapshot-format:FULL}")
+    private String snapshotFormat;
+
+    private final SnapshotRebuilder rebuilder = new SnapshotRebuilder();
+
     private final AtomicBoolean stopped = new AtomicBoolean(false);
 
     public void start() {
@@ -43,15 +53,20 @@ public class SnapshotProcessor {
         }));
 
         try {
-            consumer.subscribe(Collections.singletonList(snapshotsTopic));
-            log.info("SnapshotProcessor подписался на топик: {}", snapshotsTopic);
+            String topic = "DELTA".equalsIgnoreCase(snapshotFormat) ? snapshotDeltasTopic : snapshotsTopic;
+            consumer.subscribe(Collections.singletonList(topic));
+            log.info("SnapshotProcessor подписался на топик: {}", topic);
 
             while (!stopped.get()) {
-                ConsumerRecords<String, SensorsSnapshotAvro> records = consumer.poll(Duration.ofMillis(1000));
+                ConsumerRecords<String, SpecificRecordBase> records = consumer.poll(Duration.ofMillis(1000));
 
-                for (ConsumerRecord<String, SensorsSnapshotAvro> record : records) {
+                for (ConsumerRecord<String, SpecificRecordBase> record : records) {
                     try {
-                        processSnapshot(record.value());
+                        if (record.value() instanceof SensorsSnapshotDeltaAvro delta) {
+                            rebuilder.apply(delta).ifPresent(this::processSnapshot);
+                        } else if (record.value() instanceof SensorsSnapshotAvro snapshot) {
+                            processSnapshot(snapshot);
+                        }
                     } catch (Exception e) {
                         log.error("Ошибка при обработке снапшота", e);
                     }
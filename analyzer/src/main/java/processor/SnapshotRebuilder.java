@@ -0,0 +1,57 @@
+package processor;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotDeltaAvro;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
+class SnapshotRebuilder {
+
+    private final Map<String, RebuiltHub> hubs = new HashMap<>();
+
+    Optional<SensorsSnapshotAvro> apply(SensorsSnapshotDeltaAvro delta) {
+        String hubId = delta.getHubId();
+        RebuiltHub hub = hubs.get(hubId);
+
+        if (delta.getFull()) {
+            SensorsSnapshotAvro snapshot = new SensorsSnapshotAvro(hubId, delta.getTimestamp(),
+                    new HashMap<>(delta.getChangedSensors()));
+            hubs.put(hubId, new RebuiltHub(snapshot, delta.getVersion()));
+            return Optional.of(snapshot);
+        }
+
+        if (hub == null) {
+            log.debug("Нет полного снапшота для хаба {}, ждём следующий (версия {})", hubId, delta.getVersion());
+            return Optional.empty();
+        }
+        if (delta.getVersion() <= hub.version) {
+            log.debug("Повторная дельта для хаба {}: версия {} <= {}", hubId, delta.getVersion(), hub.version);
+            return Optional.empty();
+        }
+        if (delta.getVersion() != hub.version + 1) {
+            log.warn("Пропуск версий для хаба {}: ожидали {}, получили {}. Ждём полный снапшот",
+                    hubId, hub.version + 1, delta.getVersion());
+            hubs.remove(hubId);
+            return Optional.empty();
+        }
+
+        hub.snapshot.getSensorsState().putAll(delta.getChangedSensors());
+        hub.snapshot.setTimestamp(delta.getTimestamp());
+        hub.version = delta.getVersion();
+        return Optional.of(hub.snapshot);
+    }
+
+    private static final class RebuiltHub {
+        private final SensorsSnapshotAvro snapshot;
+        private long version;
+
+        private RebuiltHub(SensorsSnapshotAvro snapshot, long version) {
+            this.snapshot = snapshot;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package benchmark;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.kafka.telemetry.event.ClimateSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.telemetry.logging.EventLogSampler;
+import service.AggregationService;
+import service.ShardedAggregation;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregationScalingBenchmark {
+
+    private static final int BATCH_SIZE = 50_000;
+    private static final int SENSORS_PER_HUB = 8;
+
+    @Param({"1", "2", "4", "8"})
+    private int workers;
+
+    @Param("10000")
+    private int hubs;
+
+    private List<List<ConsumerRecord<String, SensorEventAvro>>> batches;
+    private AggregationService inline;
+    private ShardedAggregation sharded;
+    private List<ConsumerRecord<String, SensorEventAvro>> current;
+    private long round;
+
+    @Setup
+    public void setUp() {
+        batches = new ArrayList<>();
+        for (int generation = 0; generation < 4; generation++) {
+            batches.add(batch(generation));
+        }
+        EventLogSampler logSampler = new EventLogSampler(1);
+        inline = new AggregationService(logSampler);
+        if (workers > 1) {
+            sharded = new ShardedAggregation(workers, () -> new AggregationService(logSampler),
+                    (shard, record) -> shard.updateState(record.value()));
+        }
+    }
+
+    // Each batch must be newer than the state it replaces, otherwise updateState takes the stale-event exit.
+    @Setup(Level.Invocation)
+    public void nextBatch() {
+        current = batches.get((int) (round & 3));
+        Instant base = Instant.parse("2024-01-01T00:00:00Z").plusMillis(round * BATCH_SIZE);
+        for (int i = 0; i < current.size(); i++) {
+            current.get(i).value().setTimestamp(base.plusMillis(i));
+        }
+        round++;
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (sharded != null) {
+            sharded.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void processBatch() {
+        if (sharded == null) {
+            for (ConsumerRecord<String, SensorEventAvro> record : current) {
+                inline.updateState(record.value());
+            }
+        } else {
+            sharded.process(current);
+        }
+    }
+
+    private List<ConsumerRecord<String, SensorEventAvro>> batch(int generation) {
+        List<ConsumerRecord<String, SensorEventAvro>> records = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String hubId = "hub-" + (i % hubs);
+            String sensorId = "sensor-" + ((i / hubs) % SENSORS_PER_HUB);
+            SensorEventAvro event = new SensorEventAvro(sensorId, hubId, Instant.EPOCH,
+                    new ClimateSensorAvro(20 + generation, 40 + i % 7, 600 + generation));
+            records.add(new ConsumerRecord<>("telemetry.sensors.v1", 0, i, hubId, event));
+        }
+        return records;
+    }
+}
@@ -0,0 +1,100 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.practicum.kafka.telemetry.event.ClimateSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.MotionSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.telemetry.logging.EventLogSampler;
+import service.AggregationService;
+import service.ChangeDetection;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChangeDetectionBenchmark {
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final int HUBS = 500;
+
+    @Param({"EQUALS", "FINGERPRINT"})
+    private ChangeDetection mode;
+
+    // UNCHANGED replays equal payloads as fresh objects; CHANGED alternates values every round.
+    @Param({"UNCHANGED", "CHANGED"})
+    private String payloads;
+
+    private List<List<SensorEventAvro>> batches;
+    private AggregationService service;
+    private List<SensorEventAvro> current;
+    private long round;
+
+    @Setup
+    public void setUp() {
+        batches = List.of(batch(0), batch(1));
+        service = new AggregationService(new EventLogSampler(1));
+        service.setChangeDetection(mode);
+        batches.get(0).forEach(service::updateState);
+    }
+
+    // Each batch must be newer than the state it replaces, otherwise updateState takes the stale-event exit.
+    @Setup(Level.Invocation)
+    public void nextBatch() {
+        current = batches.get(payloads.equals("CHANGED") ? (int) (round & 1) : 0);
+        Instant base = Instant.parse("2024-01-01T00:00:00Z").plusMillis(round * BATCH_SIZE);
+        for (int i = 0; i < current.size(); i++) {
+            SensorEventAvro event = current.get(i);
+            event.setTimestamp(base.plusMillis(i));
+            event.setPayload(copy(event.getPayload()));
+        }
+        round++;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void updateState(Blackhole blackhole) {
+        for (SensorEventAvro event : current) {
+            blackhole.consume(service.updateState(event));
+        }
+    }
+
+    private static List<SensorEventAvro> batch(int generation) {
+        List<SensorEventAvro> events = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String hubId = "hub-" + (i % HUBS);
+            String sensorId = "sensor-" + (i / HUBS);
+            Object payload = i % 2 == 0
+                    ? new ClimateSensorAvro(20 + generation, 40 + i % 7, 600)
+                    : new MotionSensorAvro(90, generation == 1, 220);
+            events.add(new SensorEventAvro(sensorId, hubId, Instant.EPOCH, payload));
+        }
+        return events;
+    }
+
+    private static Object copy(Object payload) {
+        if (payload instanceof ClimateSensorAvro climate) {
+            return ClimateSensorAvro.newBuilder(climate).build();
+        }
+        return MotionSensorAvro.newBuilder((MotionSensorAvro) payload).build();
+    }
+}
@@ -0,0 +1,88 @@
+package benchmark;
+
+import collectorMain.config.HubRateLimitProperties;
+import collectorMain.controller.GrpcEventController;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kafkaConfig.DiskSpool;
+import kafkaConfig.KafkaEventProducer;
+import kafkaConfig.SensorKeyMode;
+import ru.yandex.practicum.telemetry.logging.EventLogSampler;
+import service.DeliveryMode;
+import service.EventTypeResolver;
+import service.GrpcAvroMapper;
+import service.GrpcMappingMode;
+import service.GrpcTelemetryMapper;
+import service.HubRateLimiter;
+import service.InFlightWindow;
+import service.IngestionMetrics;
+import service.RawEventParser;
+import service.SensorChangeFilter;
+import service.TelemetryMapper;
+import service.TelemetryServiceImpl;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+public final class CollectorHarness {
+
+    public static final String SENSORS_TOPIC = "telemetry.sensors.v1";
+    public static final String HUBS_TOPIC = "telemetry.hubs.v1";
+
+    private final DiscardingMockProducer producer;
+    private final KafkaEventProducer eventProducer;
+    private final TelemetryServiceImpl telemetryService;
+    private final GrpcEventController controller;
+
+    public CollectorHarness(GrpcMappingMode mappingMode) {
+        this(mappingMode, new DiscardingMockProducer());
+    }
+
+    public CollectorHarness(GrpcMappingMode mappingMode, DiscardingMockProducer producer) {
+        this.producer = producer;
+        ObjectMapper objectMapper = new ObjectMapper();
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        IngestionMetrics metrics = new IngestionMetrics(meterRegistry);
+        EventLogSampler logSampler = new EventLogSampler(1);
+        DiskSpool diskSpool = new DiskSpool(false, Path.of(System.getProperty("java.io.tmpdir"), "collector-bench-spool"),
+                1 << 20, 1 << 20);
+
+        eventProducer = new KafkaEventProducer(producer, producer, diskSpool, meterRegistry,
+                SENSORS_TOPIC, HUBS_TOPIC, SensorKeyMode.HUB_ID);
+
+        telemetryService = new TelemetryServiceImpl(
+                eventProducer,
+                new TelemetryMapper(),
+                new EventTypeResolver(List.of(), objectMapper),
+                new GrpcTelemetryMapper(),
+                new GrpcAvroMapper(),
+                new InFlightWindow(Integer.MAX_VALUE, Integer.MAX_VALUE),
+                new HubRateLimiter(new HubRateLimitProperties()),
+                new SensorChangeFilter(false, 1, Duration.ZERO),
+                new RawEventParser(objectMapper),
+                metrics,
+                logSampler,
+                mappingMode,
+                DeliveryMode.QUEUED);
+
+        controller = new GrpcEventController(telemetryService, metrics, 500);
+    }
+
+    public DiscardingMockProducer producer() {
+        return producer;
+    }
+
+    public KafkaEventProducer eventProducer() {
+        return eventProducer;
+    }
+
+    public TelemetryServiceImpl telemetryService() {
+        return telemetryService;
+    }
+
+    public GrpcEventController controller() {
+        return controller;
+    }
+}
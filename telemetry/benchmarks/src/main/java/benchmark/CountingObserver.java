@@ -0,0 +1,31 @@
+package benchmark;
+
+import io.grpc.stub.StreamObserver;
+
+public class CountingObserver<T> implements StreamObserver<T> {
+
+    private long completed;
+    private long failed;
+
+    @Override
+    public void onNext(T value) {
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        failed++;
+    }
+
+    @Override
+    public void onCompleted() {
+        completed++;
+    }
+
+    public long completed() {
+        return completed;
+    }
+
+    public long failed() {
+        return failed;
+    }
+}
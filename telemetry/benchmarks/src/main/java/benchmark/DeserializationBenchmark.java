@@ -0,0 +1,54 @@
+package benchmark;
+
+import kafka.BaseAvroDeserializer;
+import kafka.BaseAvroSerializer;
+import kafka.SensorEventDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.kafka.telemetry.event.ClimateSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Run through BenchmarkRunner: gc.alloc.rate.norm is the allocation per consumed record.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeserializationBenchmark {
+
+    @Param({"FRESH", "REUSE_DECODER", "REUSE_RECORD"})
+    private String mode;
+
+    private BaseAvroDeserializer<SensorEventAvro> deserializer;
+    private byte[] data;
+    private SensorEventAvro reuse;
+
+    @Setup
+    public void setUp() {
+        deserializer = new SensorEventDeserializer();
+        deserializer.configure(Map.of(BaseAvroDeserializer.REUSE_DECODER_CONFIG, !mode.equals("FRESH")), false);
+        SensorEventAvro event = new SensorEventAvro("sensor-climate", TelemetryFixtures.HUB_ID,
+                Instant.parse("2024-01-01T00:00:00Z"), new ClimateSensorAvro(23, 41, 612));
+        data = new BaseAvroSerializer<SensorEventAvro>().serialize("telemetry.sensors.v1", event);
+        reuse = mode.equals("REUSE_RECORD") ? new SensorEventAvro() : null;
+    }
+
+    @Benchmark
+    public SensorEventAvro deserialize() {
+        return deserializer.deserialize("telemetry.sensors.v1", data, reuse);
+    }
+}
@@ -0,0 +1,31 @@
+package benchmark;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.util.concurrent.Future;
+
+public class DiscardingMockProducer extends MockProducer<String, byte[]> {
+
+    private static final int HISTORY_LIMIT = 10_000;
+
+    private int sinceClear;
+
+    public DiscardingMockProducer() {
+        super(true, new StringSerializer(), new ByteArraySerializer());
+    }
+
+    @Override
+    public synchronized Future<RecordMetadata> send(ProducerRecord<String, byte[]> record, Callback callback) {
+        Future<RecordMetadata> future = super.send(record, callback);
+        if (++sinceClear >= HISTORY_LIMIT) {
+            clear();
+            sinceClear = 0;
+        }
+        return future;
+    }
+}
@@ -0,0 +1,175 @@
+package benchmark;
+
+import com.google.protobuf.Empty;
+import io.grpc.stub.StreamObserver;
+import kafkaConfig.EventDelivery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.grpc.telemetry.event.HubEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
+import ru.yandex.practicum.kafka.telemetry.event.HubEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import service.GrpcAvroMapper;
+import service.GrpcMappingMode;
+import service.GrpcTelemetryMapper;
+import service.TelemetryMapper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// One benchmark for both event kinds: "kind/type" picks the fixture, and each value runs in its own fork,
+// so the functions behind EventPath stay monomorphic.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventIngestionBenchmark {
+
+    @Param({"sensor/MOTION", "sensor/TEMPERATURE", "sensor/LIGHT", "sensor/CLIMATE", "sensor/SWITCH",
+            "hub/DEVICE_ADDED", "hub/DEVICE_REMOVED", "hub/SCENARIO_ADDED", "hub/SCENARIO_REMOVED"})
+    private String event;
+
+    private EventPath<?, ?> path;
+    private CountingObserver<Empty> observer;
+
+    @Setup
+    public void setUp() {
+        String[] parts = event.split("/", 2);
+        CollectorHarness dtoHarness = new CollectorHarness(GrpcMappingMode.DTO);
+        CollectorHarness directHarness = new CollectorHarness(GrpcMappingMode.DIRECT);
+        path = switch (parts[0]) {
+            case "sensor" -> sensorPath(TelemetryFixtures.sensorEvent(parts[1]), dtoHarness, directHarness);
+            case "hub" -> hubPath(TelemetryFixtures.hubEvent(parts[1]), dtoHarness, directHarness);
+            default -> throw new IllegalArgumentException("Unknown event kind: " + parts[0]);
+        };
+        observer = new CountingObserver<>();
+    }
+
+    @TearDown
+    public void checkHandlerErrors() {
+        if (observer.failed() > 0) {
+            throw new IllegalStateException(observer.failed() + " handler calls failed for " + event);
+        }
+    }
+
+    @Benchmark
+    public Object grpcToDto() {
+        return path.grpcToDto();
+    }
+
+    @Benchmark
+    public Object grpcToAvroViaDto() {
+        return path.grpcToAvroViaDto();
+    }
+
+    @Benchmark
+    public Object grpcToAvroDirect() {
+        return path.grpcToAvroDirect();
+    }
+
+    @Benchmark
+    public byte[] serializeAvro() {
+        return path.serializeAvro();
+    }
+
+    @Benchmark
+    public EventDelivery send() {
+        return path.send();
+    }
+
+    @Benchmark
+    public CountingObserver<Empty> handlerViaDto() {
+        path.handlerViaDto(observer);
+        return observer;
+    }
+
+    @Benchmark
+    public CountingObserver<Empty> handlerDirect() {
+        path.handlerDirect(observer);
+        return observer;
+    }
+
+    private static EventPath<SensorEventProto, SensorEventAvro> sensorPath(SensorEventProto proto,
+                                                                          CollectorHarness dtoHarness,
+                                                                          CollectorHarness directHarness) {
+        GrpcTelemetryMapper grpcTelemetryMapper = new GrpcTelemetryMapper();
+        TelemetryMapper telemetryMapper = new TelemetryMapper();
+        GrpcAvroMapper grpcAvroMapper = new GrpcAvroMapper();
+        return new EventPath<>(proto, grpcAvroMapper.toAvro(proto),
+                grpcTelemetryMapper::map,
+                event -> telemetryMapper.toAvro(grpcTelemetryMapper.map(event)),
+                grpcAvroMapper::toAvro,
+                directHarness.eventProducer()::serialize,
+                avro -> directHarness.eventProducer().send(avro, false),
+                dtoHarness.controller()::collectSensorEvent,
+                directHarness.controller()::collectSensorEvent);
+    }
+
+    private static EventPath<HubEventProto, HubEventAvro> hubPath(HubEventProto proto,
+                                                                  CollectorHarness dtoHarness,
+                                                                  CollectorHarness directHarness) {
+        GrpcTelemetryMapper grpcTelemetryMapper = new GrpcTelemetryMapper();
+        TelemetryMapper telemetryMapper = new TelemetryMapper();
+        GrpcAvroMapper grpcAvroMapper = new GrpcAvroMapper();
+        return new EventPath<>(proto, grpcAvroMapper.toAvro(proto),
+                grpcTelemetryMapper::map,
+                event -> telemetryMapper.toAvro(grpcTelemetryMapper.map(event)),
+                grpcAvroMapper::toAvro,
+                directHarness.eventProducer()::serialize,
+                avro -> directHarness.eventProducer().send(avro, false),
+                dtoHarness.controller()::collectHubEvent,
+                directHarness.controller()::collectHubEvent);
+    }
+
+    private record EventPath<P, A>(P proto,
+                                   A avro,
+                                   Function<P, ?> toDto,
+                                   Function<P, A> toAvroViaDto,
+                                   Function<P, A> toAvroDirect,
+                                   Function<A, byte[]> serializer,
+                                   Function<A, EventDelivery> sender,
+                                   BiConsumer<P, StreamObserver<Empty>> dtoHandler,
+                                   BiConsumer<P, StreamObserver<Empty>> directHandler) {
+
+        Object grpcToDto() {
+            return toDto.apply(proto);
+        }
+
+        Object grpcToAvroViaDto() {
+            return toAvroViaDto.apply(proto);
+        }
+
+        Object grpcToAvroDirect() {
+            return toAvroDirect.apply(proto);
+        }
+
+        byte[] serializeAvro() {
+            return serializer.apply(avro);
+        }
+
+        EventDelivery send() {
+            return sender.apply(avro);
+        }
+
+        void handlerViaDto(StreamObserver<Empty> observer) {
+            dtoHandler.accept(proto, observer);
+        }
+
+        void handlerDirect(StreamObserver<Empty> observer) {
+            directHandler.accept(proto, observer);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package benchmark;
+
+import collectorMain.config.GrpcExecutorConfig;
+import collectorMain.config.GrpcExecutorMode;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import ru.yandex.practicum.grpc.telemetry.collector.CollectorControllerGrpc;
+import ru.yandex.practicum.grpc.telemetry.collector.CollectorControllerGrpc.CollectorControllerBlockingStub;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
+import service.GrpcMappingMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Closed-loop load against an in-process gRPC server whose executor comes from GrpcExecutorConfig.
+// Every hub is one client issuing unary CollectSensorEvent calls back to back; the producer blocks on
+// send() the way KafkaProducer does when its buffer is full. For each executor mode the hub count is
+// raised step by step and "max hubs" is the largest step whose p99 stays within the SLO.
+// Usage: java -cp benchmarks.jar benchmark.GrpcExecutorLoad [stepSeconds] [sendBlockMicros] [sloMillis] [poolSize]
+public final class GrpcExecutorLoad {
+
+    private static final int[] HUB_STEPS = {16, 64, 256, 1024, 4096};
+
+    private GrpcExecutorLoad() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long stepNanos = TimeUnit.SECONDS.toNanos(args.length > 0 ? Long.parseLong(args[0]) : 5);
+        long sendBlockNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 1 ? Long.parseLong(args[1]) : 200);
+        long sloNanos = TimeUnit.MILLISECONDS.toNanos(args.length > 2 ? Long.parseLong(args[2]) : 50);
+        int poolSize = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+
+        for (GrpcExecutorMode mode : GrpcExecutorMode.values()) {
+            int maxHubs = 0;
+            for (int hubs : HUB_STEPS) {
+                StepResult result = runStep(mode, poolSize, hubs, stepNanos, sendBlockNanos);
+                System.out.printf("%-8s hubs=%-5d calls/s=%-9.0f p50=%.2fms p99=%.2fms max=%.2fms "
+                                + "peak-concurrent-sends=%d failed=%d%n",
+                        mode, hubs, result.throughput(), millis(result.p50()), millis(result.p99()),
+                        millis(result.max()), result.peakConcurrent(), result.failed());
+                if (result.failed() > 0 || result.p99() > sloNanos) {
+                    break;
+                }
+                maxHubs = hubs;
+            }
+            System.out.printf("%-8s max hubs within p99<=%dms: %d%n",
+                    mode, TimeUnit.NANOSECONDS.toMillis(sloNanos), maxHubs);
+        }
+    }
+
+    private static StepResult runStep(GrpcExecutorMode mode, int poolSize, int hubs, long stepNanos,
+                                      long sendBlockNanos) throws IOException, InterruptedException {
+        BlockingMockProducer producer = new BlockingMockProducer(sendBlockNanos);
+        CollectorHarness harness = new CollectorHarness(GrpcMappingMode.DIRECT, producer);
+        GrpcExecutorConfig executorConfig = new GrpcExecutorConfig(mode, poolSize);
+
+        String serverName = "executor-load-" + mode + "-" + hubs;
+        InProcessServerBuilder serverBuilder = InProcessServerBuilder.forName(serverName);
+        executorConfig.grpcExecutorConfigurer().accept(serverBuilder);
+        Server server = serverBuilder.addService(harness.controller()).build().start();
+        ManagedChannel channel = InProcessChannelBuilder.forName(serverName).build();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            CollectorControllerBlockingStub stub = CollectorControllerGrpc.newBlockingStub(channel);
+            long deadline = System.nanoTime() + stepNanos;
+            List<Future<HubResult>> futures = new ArrayList<>(hubs);
+            for (int hub = 0; hub < hubs; hub++) {
+                SensorEventProto event = TelemetryFixtures.sensorEvent("CLIMATE").toBuilder()
+                        .setHubId("hub-load-" + hub)
+                        .build();
+                futures.add(clients.submit(() -> runHub(stub, event, deadline)));
+            }
+
+            long[] latencies = new long[0];
+            long failed = 0;
+            for (Future<HubResult> future : futures) {
+                HubResult hub = future.get();
+                int offset = latencies.length;
+                latencies = Arrays.copyOf(latencies, offset + hub.count());
+                System.arraycopy(hub.latencies(), 0, latencies, offset, hub.count());
+                failed += hub.failed();
+            }
+            Arrays.sort(latencies);
+            return new StepResult(latencies.length * 1e9 / stepNanos, percentile(latencies, 0.50),
+                    percentile(latencies, 0.99), latencies.length > 0 ? latencies[latencies.length - 1] : 0,
+                    producer.peakConcurrent(), failed);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load client failed", e.getCause());
+        } finally {
+            channel.shutdownNow();
+            server.shutdownNow().awaitTermination(10, TimeUnit.SECONDS);
+            executorConfig.shutdownExecutor();
+        }
+    }
+
+    private static HubResult runHub(CollectorControllerBlockingStub stub,
+                                    SensorEventProto event, long deadline) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        long failed = 0;
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                stub.collectSensorEvent(event);
+            } catch (StatusRuntimeException e) {
+                failed++;
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        return new HubResult(latencies, count, failed);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private record HubResult(long[] latencies, int count, long failed) {
+    }
+
+    private record StepResult(double throughput, long p50, long p99, long max, int peakConcurrent, long failed) {
+    }
+
+    // Parks outside MockProducer's lock so that concurrent sends overlap like a full KafkaProducer buffer.
+    private static final class BlockingMockProducer extends DiscardingMockProducer {
+        private final long blockNanos;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        private BlockingMockProducer(long blockNanos) {
+            this.blockNanos = blockNanos;
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<String, byte[]> record, Callback callback) {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                if (blockNanos > 0) {
+                    LockSupport.parkNanos(blockNanos);
+                }
+            } finally {
+                active.decrementAndGet();
+            }
+            return super.send(record, callback);
+        }
+
+        private int peakConcurrent() {
+            return peak.get();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package benchmark;
+
+import kafkaConfig.ProducerProfile;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.GrpcAvroMapper;
+import service.GrpcMappingMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Needs a running broker: docker compose up kafka kafka-init-topics
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProducerProfileBenchmark {
+
+    private static final int RECORDS_PER_BURST = 1000;
+
+    @Param("localhost:9092")
+    private String bootstrapServers;
+
+    @Param("telemetry.sensors.v1")
+    private String topic;
+
+    @Param({"DEFAULT", "THROUGHPUT", "LATENCY"})
+    private ProducerProfile profile;
+
+    private KafkaProducer<String, byte[]> producer;
+    private byte[] value;
+
+    @Setup
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        properties.put(ProducerConfig.CLIENT_ID_CONFIG, "collector-benchmark-" + profile.name().toLowerCase());
+        properties.put(ProducerConfig.ACKS_CONFIG, "all");
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        profile.applyTo(properties);
+        producer = new KafkaProducer<>(properties);
+
+        CollectorHarness harness = new CollectorHarness(GrpcMappingMode.DIRECT);
+        value = harness.eventProducer()
+                .serialize(new GrpcAvroMapper().toAvro(TelemetryFixtures.sensorEvent("CLIMATE")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        producer.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(RECORDS_PER_BURST)
+    public void throughput() throws Exception {
+        List<Future<RecordMetadata>> acks = new ArrayList<>(RECORDS_PER_BURST);
+        for (int i = 0; i < RECORDS_PER_BURST; i++) {
+            acks.add(producer.send(new ProducerRecord<>(topic, TelemetryFixtures.HUB_ID, value)));
+        }
+        for (Future<RecordMetadata> ack : acks) {
+            ack.get();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public RecordMetadata sendLatency() throws Exception {
+        return producer.send(new ProducerRecord<>(topic, TelemetryFixtures.HUB_ID, value)).get();
+    }
+}
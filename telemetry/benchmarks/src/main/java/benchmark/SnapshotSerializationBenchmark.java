@@ -0,0 +1,77 @@
+package benchmark;
+
+import kafka.SensorsSnapshotSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.kafka.telemetry.event.ClimateSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.MotionSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorStateAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorsSnapshotAvro;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// One sensor changes per emission, as in the aggregator hot path; the rest of the hub is untouched.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnapshotSerializationBenchmark {
+
+    private static final Instant BASE = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Param({"8", "64"})
+    private int sensors;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private SensorsSnapshotSerializer serializer;
+    private SensorsSnapshotAvro snapshot;
+    private long round;
+
+    @Setup
+    public void setUp() {
+        Map<String, SensorStateAvro> sensorsState = new HashMap<>();
+        for (int i = 0; i < sensors; i++) {
+            Object payload = i % 2 == 0 ? new ClimateSensorAvro(21, 40 + i, 600) : new MotionSensorAvro(90, false, 220);
+            sensorsState.put("sensor-" + i, new SensorStateAvro(BASE, payload));
+        }
+        snapshot = new SensorsSnapshotAvro(TelemetryFixtures.HUB_ID, BASE, sensorsState);
+        serializer = new SensorsSnapshotSerializer(cached);
+
+        // The assembled form must stay byte-identical to a plain encode, or consumers would break.
+        SensorsSnapshotSerializer plain = new SensorsSnapshotSerializer();
+        for (int i = 0; i < 3; i++) {
+            serialize();
+            if (!Arrays.equals(serializer.serialize(null, snapshot), plain.serialize(null, snapshot))) {
+                throw new IllegalStateException("cached encoding differs from plain encoding");
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        Instant timestamp = BASE.plusMillis(++round);
+        String sensorId = "sensor-" + (round % sensors);
+        snapshot.getSensorsState().put(sensorId,
+                new SensorStateAvro(timestamp, new ClimateSensorAvro(21, (int) (round % 100), 600)));
+        snapshot.setTimestamp(timestamp);
+        serializer.invalidate(TelemetryFixtures.HUB_ID, sensorId);
+        return serializer.serialize(null, snapshot);
+    }
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import ru.yandex.practicum.kafka.telemetry.event.ClimateSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.LightSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.MotionSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.kafka.telemetry.event.SwitchSensorAvro;
+import ru.yandex.practicum.kafka.telemetry.event.TemperatureSensorAvro;
+import ru.yandex.practicum.telemetry.logging.EventLogSampler;
+import service.AggregationService;
+import service.StateLayout;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Instant;
+
+// Retained heap per sensor for each aggregator state layout.
+// Usage: java -cp benchmarks.jar benchmark.StateFootprint [hubs] [sensorsPerHub]
+public final class StateFootprint {
+
+    private StateFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int hubs = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int sensorsPerHub = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        long sensors = (long) hubs * sensorsPerHub;
+        for (StateLayout layout : StateLayout.values()) {
+            long retained = measure(layout, hubs, sensorsPerHub);
+            System.out.printf("%-8s hubs=%d sensors=%d retained=%d KiB bytes/sensor=%.1f%n",
+                    layout, hubs, sensors, retained / 1024, (double) retained / sensors);
+        }
+    }
+
+    private static long measure(StateLayout layout, int hubs, int sensorsPerHub) {
+        long before = usedHeap();
+        AggregationService service = load(layout, hubs, sensorsPerHub);
+        long after = usedHeap();
+        if (service.snapshotOf("hub-0") == null) {
+            throw new IllegalStateException("state was not loaded");
+        }
+        return after - before;
+    }
+
+    private static AggregationService load(StateLayout layout, int hubs, int sensorsPerHub) {
+        AggregationService service = new AggregationService(new EventLogSampler(1));
+        service.setStateLayout(layout);
+        Instant timestamp = Instant.parse("2024-01-01T00:00:00Z");
+        for (int hub = 0; hub < hubs; hub++) {
+            for (int sensor = 0; sensor < sensorsPerHub; sensor++) {
+                service.apply(new SensorEventAvro("sensor-" + hub + "-" + sensor, "hub-" + hub, timestamp,
+                        payload(sensor, hub)));
+            }
+        }
+        return service;
+    }
+
+    private static Object payload(int sensor, int seed) {
+        return switch (sensor % 5) {
+            case 0 -> new ClimateSensorAvro(20 + seed % 5, 40, 600);
+            case 1 -> new LightSensorAvro(80, seed % 1000);
+            case 2 -> new MotionSensorAvro(90, seed % 2 == 0, 220);
+            case 3 -> new SwitchSensorAvro(seed % 2 == 0);
+            default -> new TemperatureSensorAvro(21, 70);
+        };
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,94 @@
+package benchmark;
+
+import com.google.protobuf.Timestamp;
+import ru.yandex.practicum.grpc.telemetry.event.ActionTypeProto;
+import ru.yandex.practicum.grpc.telemetry.event.ClimateSensorEvent;
+import ru.yandex.practicum.grpc.telemetry.event.ConditionOperationProto;
+import ru.yandex.practicum.grpc.telemetry.event.ConditionTypeProto;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceActionProto;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceAddedEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceRemovedEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.DeviceTypeProto;
+import ru.yandex.practicum.grpc.telemetry.event.HubEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.LightSensorEvent;
+import ru.yandex.practicum.grpc.telemetry.event.MotionSensorEvent;
+import ru.yandex.practicum.grpc.telemetry.event.ScenarioAddedEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.ScenarioConditionProto;
+import ru.yandex.practicum.grpc.telemetry.event.ScenarioRemovedEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.SwitchSensorEvent;
+import ru.yandex.practicum.grpc.telemetry.event.TemperatureSensorEvent;
+
+public final class TelemetryFixtures {
+
+    public static final String HUB_ID = "hub-bench-1";
+
+    private static final Timestamp TIMESTAMP = Timestamp.newBuilder()
+            .setSeconds(1_700_000_000L)
+            .setNanos(123_000_000)
+            .build();
+
+    private TelemetryFixtures() {
+    }
+
+    public static SensorEventProto sensorEvent(String type) {
+        SensorEventProto.Builder builder = SensorEventProto.newBuilder()
+                .setId("sensor-" + type.toLowerCase())
+                .setHubId(HUB_ID)
+                .setTimestamp(TIMESTAMP);
+        return switch (type) {
+            case "MOTION" -> builder.setMotionSensorEvent(MotionSensorEvent.newBuilder()
+                    .setLinkQuality(87)
+                    .setMotion(true)
+                    .setVoltage(220)).build();
+            case "TEMPERATURE" -> builder.setTemperatureSensorEvent(TemperatureSensorEvent.newBuilder()
+                    .setTemperatureC(22)
+                    .setTemperatureF(71)).build();
+            case "LIGHT" -> builder.setLightSensorEvent(LightSensorEvent.newBuilder()
+                    .setLinkQuality(64)
+                    .setLuminosity(430)).build();
+            case "CLIMATE" -> builder.setClimateSensorEvent(ClimateSensorEvent.newBuilder()
+                    .setTemperatureC(23)
+                    .setHumidity(41)
+                    .setCo2Level(612)).build();
+            case "SWITCH" -> builder.setSwitchSensorEvent(SwitchSensorEvent.newBuilder()
+                    .setState(true)).build();
+            default -> throw new IllegalArgumentException("Unknown sensor event type: " + type);
+        };
+    }
+
+    public static HubEventProto hubEvent(String type) {
+        HubEventProto.Builder builder = HubEventProto.newBuilder()
+                .setHubId(HUB_ID)
+                .setTimestamp(TIMESTAMP);
+        return switch (type) {
+            case "DEVICE_ADDED" -> builder.setDeviceAdded(DeviceAddedEventProto.newBuilder()
+                    .setId("sensor-climate")
+                    .setType(DeviceTypeProto.CLIMATE_SENSOR)).build();
+            case "DEVICE_REMOVED" -> builder.setDeviceRemoved(DeviceRemovedEventProto.newBuilder()
+                    .setId("sensor-climate")).build();
+            case "SCENARIO_ADDED" -> builder.setScenarioAdded(ScenarioAddedEventProto.newBuilder()
+                    .setName("night-light")
+                    .addCondition(ScenarioConditionProto.newBuilder()
+                            .setSensorId("sensor-motion")
+                            .setType(ConditionTypeProto.MOTION)
+                            .setOperation(ConditionOperationProto.EQUALS)
+                            .setBoolValue(true))
+                    .addCondition(ScenarioConditionProto.newBuilder()
+                            .setSensorId("sensor-light")
+                            .setType(ConditionTypeProto.LUMINOSITY)
+                            .setOperation(ConditionOperationProto.LOWER_THAN)
+                            .setIntValue(100))
+                    .addAction(DeviceActionProto.newBuilder()
+                            .setSensorId("sensor-switch")
+                            .setType(ActionTypeProto.ACTIVATE))
+                    .addAction(DeviceActionProto.newBuilder()
+                            .setSensorId("sensor-dimmer")
+                            .setType(ActionTypeProto.SET_VALUE)
+                            .setValue(40))).build();
+            case "SCENARIO_REMOVED" -> builder.setScenarioRemoved(ScenarioRemovedEventProto.newBuilder()
+                    .setName("night-light")).build();
+            default -> throw new IllegalArgumentException("Unknown hub event type: " + type);
+        };
+    }
+}
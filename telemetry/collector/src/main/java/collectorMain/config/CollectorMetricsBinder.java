@@ -0,0 +1,99 @@
+package collectorMain.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
+import kafkaConfig.DiskSpool;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.telemetry.logging.CountingAsyncAppender;
+import ru.yandex.practicum.telemetry.logging.EventLogSampler;
+import service.HubRateLimiter;
+import service.InFlightWindow;
+import service.SensorChangeFilter;
+
+@Component
+public class CollectorMetricsBinder implements MeterBinder {
+
+    private final InFlightWindow inFlightWindow;
+    private final DiskSpool diskSpool;
+    private final SensorChangeFilter sensorChangeFilter;
+    private final HubRateLimiter hubRateLimiter;
+    private final EventLogSampler logSampler;
+    private final KafkaProducer<String, byte[]> sensorsKafkaProducer;
+    private final KafkaProducer<String, byte[]> hubsKafkaProducer;
+
+    public CollectorMetricsBinder(InFlightWindow inFlightWindow,
+                                  DiskSpool diskSpool,
+                                  SensorChangeFilter sensorChangeFilter,
+                                  HubRateLimiter hubRateLimiter,
+                                  EventLogSampler logSampler,
+                                  @Qualifier("sensorsKafkaProducer") KafkaProducer<String, byte[]> sensorsKafkaProducer,
+                                  @Qualifier("hubsKafkaProducer") KafkaProducer<String, byte[]> hubsKafkaProducer) {
+        this.inFlightWindow = inFlightWindow;
+        this.diskSpool = diskSpool;
+        this.sensorChangeFilter = sensorChangeFilter;
+        this.hubRateLimiter = hubRateLimiter;
+        this.logSampler = logSampler;
+        this.sensorsKafkaProducer = sensorsKafkaProducer;
+        this.hubsKafkaProducer = hubsKafkaProducer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("collector.delivery.in.flight", inFlightWindow, InFlightWindow::getInFlight)
+                .register(registry);
+        Gauge.builder("collector.delivery.in.flight.hubs", inFlightWindow, InFlightWindow::getTrackedHubs)
+                .register(registry);
+
+        Gauge.builder("collector.spool.pending.records", diskSpool, DiskSpool::getPendingRecords)
+                .register(registry);
+        Gauge.builder("collector.spool.bytes", diskSpool, DiskSpool::getSpoolBytes)
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("collector.spool.records", diskSpool, DiskSpool::getSpooledRecords)
+                .tag("outcome", "spooled")
+                .register(registry);
+        FunctionCounter.builder("collector.spool.records", diskSpool, DiskSpool::getReplayedRecords)
+                .tag("outcome", "replayed")
+                .register(registry);
+        FunctionCounter.builder("collector.spool.records", diskSpool, DiskSpool::getRejectedRecords)
+                .tag("outcome", "rejected")
+                .register(registry);
+        FunctionCounter.builder("collector.spool.records", diskSpool, DiskSpool::getDroppedRecords)
+                .tag("outcome", "dropped")
+                .register(registry);
+
+        FunctionCounter.builder("collector.suppression.events", sensorChangeFilter,
+                        SensorChangeFilter::getForwardedCount)
+                .tag("outcome", "forwarded")
+                .register(registry);
+        FunctionCounter.builder("collector.suppression.events", sensorChangeFilter,
+                        SensorChangeFilter::getSuppressedCount)
+                .tag("outcome", "suppressed")
+                .register(registry);
+
+        FunctionCounter.builder("collector.rate.limit.events", hubRateLimiter, HubRateLimiter::getAdmittedCount)
+                .tag("outcome", "admitted")
+                .register(registry);
+        FunctionCounter.builder("collector.rate.limit.events", hubRateLimiter, HubRateLimiter::getThrottledCount)
+                .tag("outcome", "throttled")
+                .register(registry);
+        Gauge.builder("collector.rate.limit.hubs", hubRateLimiter, HubRateLimiter::getTrackedHubs)
+                .register(registry);
+
+        FunctionCounter.builder("collector.logging.events", logSampler, EventLogSampler::getSuppressedCount)
+                .tag("outcome", "sampled-out")
+                .register(registry);
+        FunctionCounter.builder("collector.logging.events", CountingAsyncAppender.class,
+                        ignored -> CountingAsyncAppender.getDroppedCount())
+                .tag("outcome", "dropped")
+                .register(registry);
+
+        new KafkaClientMetrics(sensorsKafkaProducer).bindTo(registry);
+        new KafkaClientMetrics(hubsKafkaProducer).bindTo(registry);
+    }
+}
@@ -0,0 +1,50 @@
+package collectorMain.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+@Configuration
+public class GrpcExecutorConfig {
+
+    private final GrpcExecutorMode mode;
+    private final int platformPoolSize;
+    private ExecutorService executor;
+
+    public GrpcExecutorConfig(@Value("${collector.grpc.executor.mode:DEFAULT}") GrpcExecutorMode mode,
+                              @Value("${collector.grpc.executor.platform-pool-size:64}") int platformPoolSize) {
+        this.mode = mode;
+        this.platformPoolSize = platformPoolSize;
+    }
+
+    @Bean
+    public GrpcServerConfigurer grpcExecutorConfigurer() {
+        return serverBuilder -> {
+            executor = switch (mode) {
+                case VIRTUAL -> Executors.newThreadPerTaskExecutor(
+                        Thread.ofVirtual().name("grpc-virtual-", 0).factory());
+                case PLATFORM -> Executors.newFixedThreadPool(platformPoolSize,
+                        Thread.ofPlatform().name("grpc-platform-", 0).factory());
+                case DEFAULT -> null;
+            };
+            if (executor != null) {
+                serverBuilder.executor(executor);
+            }
+            log.info("gRPC server executor mode: {}", mode);
+        };
+    }
+
+    @PreDestroy
+    public void shutdownExecutor() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package collectorMain.config;
+
+public enum GrpcExecutorMode {
+    DEFAULT,
+    PLATFORM,
+    VIRTUAL
+}
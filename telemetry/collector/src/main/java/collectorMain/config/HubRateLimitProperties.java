@@ -0,0 +1,32 @@
+package collectorMain.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "collector.rate-limit")
+public class HubRateLimitProperties {
+
+    private boolean enabled = false;
+
+    private Limit defaults = new Limit();
+
+    private Map<String, Limit> hubs = new HashMap<>();
+
+    public Limit limitFor(String hubId) {
+        return hubs.getOrDefault(hubId, defaults);
+    }
+
+    @Data
+    public static class Limit {
+
+        private double eventsPerSecond = 1000;
+
+        private int burst = 2000;
+    }
+}
@@ -0,0 +1,12 @@
+package collectorMain.controller;
+
+import ru.yandex.practicum.grpc.telemetry.event.CollectBatchAckProto;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@FunctionalInterface
+interface EventBatchHandler<T> {
+
+    CompletableFuture<Void> handle(List<T> events, long firstSequence, CollectBatchAckProto.Builder ack);
+}
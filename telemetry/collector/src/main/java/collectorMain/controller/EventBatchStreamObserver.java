@@ -0,0 +1,99 @@
+package collectorMain.controller;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.grpc.telemetry.event.CollectBatchAckProto;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+@Slf4j
+class EventBatchStreamObserver<B, T> implements StreamObserver<B> {
+
+    private final ServerCallStreamObserver<CollectBatchAckProto> responseObserver;
+    private final Function<B, List<T>> unpacker;
+    private final EventBatchHandler<T> batchHandler;
+    private final AtomicBoolean awaitingReady = new AtomicBoolean();
+    private long batchSequence;
+    private CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+    private volatile boolean failed;
+
+    EventBatchStreamObserver(StreamObserver<CollectBatchAckProto> responseObserver,
+                             Function<B, List<T>> unpacker,
+                             EventBatchHandler<T> batchHandler) {
+        this.responseObserver = (ServerCallStreamObserver<CollectBatchAckProto>) responseObserver;
+        this.unpacker = unpacker;
+        this.batchHandler = batchHandler;
+
+        this.responseObserver.disableAutoRequest();
+        this.responseObserver.setOnReadyHandler(this::onReady);
+        this.responseObserver.request(1);
+    }
+
+    @Override
+    public void onNext(B batch) {
+        if (failed) {
+            return;
+        }
+        CollectBatchAckProto.Builder ack = CollectBatchAckProto.newBuilder()
+                .setBatchSequence(batchSequence++);
+        CompletableFuture<Void> handled;
+        try {
+            handled = batchHandler.handle(unpacker.apply(batch), 0, ack);
+        } catch (Exception e) {
+            handled = CompletableFuture.failedFuture(e);
+        }
+        inFlight = handled.whenComplete((ignored, e) -> {
+            if (e == null) {
+                responseObserver.onNext(ack.build());
+                requestNext();
+            } else {
+                fail(ack.getBatchSequence(), e);
+            }
+        });
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.warn("Batch stream aborted by client after {} batches: {}", batchSequence, t.getMessage());
+        failed = true;
+    }
+
+    @Override
+    public void onCompleted() {
+        inFlight.whenComplete((ignored, e) -> {
+            if (!failed) {
+                responseObserver.onCompleted();
+            }
+        });
+    }
+
+    private void requestNext() {
+        awaitingReady.set(true);
+        if (responseObserver.isReady() && awaitingReady.compareAndSet(true, false)) {
+            responseObserver.request(1);
+        }
+    }
+
+    private void onReady() {
+        if (awaitingReady.compareAndSet(true, false) && !failed) {
+            responseObserver.request(1);
+        }
+    }
+
+    private void fail(long batch, Throwable e) {
+        if (failed) {
+            return;
+        }
+        log.error("Error processing gRPC event batch #{}", batch, e);
+        failed = true;
+        responseObserver.onError(Status.INTERNAL
+                .withDescription(e.getMessage())
+                .withCause(e)
+                .asRuntimeException());
+    }
+}
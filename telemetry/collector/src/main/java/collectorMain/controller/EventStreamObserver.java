@@ -0,0 +1,103 @@
+package collectorMain.controller;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.grpc.telemetry.event.CollectBatchAckProto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+class EventStreamObserver<T> implements StreamObserver<T> {
+
+    private final ServerCallStreamObserver<CollectBatchAckProto> responseObserver;
+    private final EventBatchHandler<T> batchHandler;
+    private final int batchSize;
+    private final CollectBatchAckProto.Builder ack = CollectBatchAckProto.newBuilder();
+    private List<T> buffer;
+    private long sequence;
+    private CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+    private volatile boolean failed;
+
+    EventStreamObserver(StreamObserver<CollectBatchAckProto> responseObserver,
+                        int batchSize,
+                        EventBatchHandler<T> batchHandler) {
+        this.responseObserver = (ServerCallStreamObserver<CollectBatchAckProto>) responseObserver;
+        this.batchSize = batchSize;
+        this.batchHandler = batchHandler;
+        this.buffer = new ArrayList<>(batchSize);
+
+        this.responseObserver.disableAutoRequest();
+        this.responseObserver.request(batchSize);
+    }
+
+    @Override
+    public void onNext(T event) {
+        if (failed) {
+            return;
+        }
+        buffer.add(event);
+        if (buffer.size() < batchSize) {
+            return;
+        }
+        inFlight = flush().whenComplete((ignored, e) -> {
+            if (e == null) {
+                responseObserver.request(batchSize);
+            } else {
+                fail(e);
+            }
+        });
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.warn("Event stream aborted by client after {} events: {}", sequence + buffer.size(), t.getMessage());
+        failed = true;
+    }
+
+    @Override
+    public void onCompleted() {
+        if (failed) {
+            return;
+        }
+        inFlight.thenCompose(ignored -> flush())
+                .whenComplete((ignored, e) -> {
+                    if (e == null) {
+                        responseObserver.onNext(ack.build());
+                        responseObserver.onCompleted();
+                    } else {
+                        fail(e);
+                    }
+                });
+    }
+
+    private CompletableFuture<Void> flush() {
+        if (buffer.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<T> batch = buffer;
+        long firstSequence = sequence;
+        buffer = new ArrayList<>(batchSize);
+        sequence += batch.size();
+        try {
+            return batchHandler.handle(batch, firstSequence, ack);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void fail(Throwable e) {
+        if (failed) {
+            return;
+        }
+        log.error("Error processing gRPC event stream", e);
+        failed = true;
+        responseObserver.onError(Status.INTERNAL
+                .withDescription(e.getMessage())
+                .withCause(e)
+                .asRuntimeException());
+    }
+}
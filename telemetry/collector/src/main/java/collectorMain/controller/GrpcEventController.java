@@ -4,60 +4,147 @@ import com.google.protobuf.Empty;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
+import org.springframework.beans.factory.annotation.Value;
 import ru.yandex.practicum.grpc.telemetry.collector.CollectorControllerGrpc.CollectorControllerImplBase;
+import ru.yandex.practicum.grpc.telemetry.event.CollectBatchAckProto;
+import ru.yandex.practicum.grpc.telemetry.event.EventErrorProto;
+import ru.yandex.practicum.grpc.telemetry.event.HubEventBatchProto;
 import ru.yandex.practicum.grpc.telemetry.event.HubEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventBatchProto;
 import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
-import service.GrpcTelemetryMapper;
+import service.BatchResult;
+import service.InFlightLimitExceededException;
+import service.IngestionMetrics;
+import service.RateLimitExceededException;
 import service.TelemetryService;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @Slf4j
 @GrpcService
-@RequiredArgsConstructor
 public class GrpcEventController extends CollectorControllerImplBase {
 
     private final TelemetryService telemetryService;
-    private final GrpcTelemetryMapper grpcTelemetryMapper;
+    private final IngestionMetrics metrics;
+    private final int streamBatchSize;
+
+    public GrpcEventController(TelemetryService telemetryService,
+                               IngestionMetrics metrics,
+                               @Value("${collector.grpc.stream.batch-size:500}") int streamBatchSize) {
+        this.telemetryService = telemetryService;
+        this.metrics = metrics;
+        this.streamBatchSize = streamBatchSize;
+    }
 
     @Override
     public void collectSensorEvent(SensorEventProto request, StreamObserver<Empty> responseObserver) {
         try {
-            log.info("Processing gRPC sensor event of type: {}", request.getPayloadCase());
-            var sensorEventDto = grpcTelemetryMapper.map(request);
-            telemetryService.save(sensorEventDto);
-
-            responseObserver.onNext(Empty.getDefaultInstance());
-            responseObserver.onCompleted();
-
+            telemetryService.save(request)
+                    .whenComplete((ignored, e) -> complete(responseObserver, e, "sensor"));
         } catch (Exception e) {
-            log.error("Error processing gRPC sensor event", e);
-            responseObserver.onError(new StatusRuntimeException(
-                    Status.INTERNAL
-                            .withDescription(e.getMessage())
-                            .withCause(e)
-            ));
+            complete(responseObserver, e, "sensor");
         }
     }
 
     @Override
     public void collectHubEvent(HubEventProto request, StreamObserver<Empty> responseObserver) {
         try {
-            log.info("Processing gRPC hub event of type: {}", request.getPayloadCase());
-            var hubEventDto = grpcTelemetryMapper.map(request);
-            telemetryService.save(hubEventDto);
+            telemetryService.save(request)
+                    .whenComplete((ignored, e) -> complete(responseObserver, e, "hub"));
+        } catch (Exception e) {
+            complete(responseObserver, e, "hub");
+        }
+    }
+
+    @Override
+    public StreamObserver<SensorEventProto> collectSensorEventStream(
+            StreamObserver<CollectBatchAckProto> responseObserver) {
+        return new EventStreamObserver<>(responseObserver, streamBatchSize, this::saveSensorBatch);
+    }
+
+    @Override
+    public StreamObserver<HubEventProto> collectHubEventStream(
+            StreamObserver<CollectBatchAckProto> responseObserver) {
+        return new EventStreamObserver<>(responseObserver, streamBatchSize, this::saveHubBatch);
+    }
+
+    @Override
+    public StreamObserver<SensorEventBatchProto> collectSensorEventBatches(
+            StreamObserver<CollectBatchAckProto> responseObserver) {
+        return new EventBatchStreamObserver<>(responseObserver, SensorEventBatchProto::getEventList,
+                this::saveSensorBatch);
+    }
 
+    @Override
+    public StreamObserver<HubEventBatchProto> collectHubEventBatches(
+            StreamObserver<CollectBatchAckProto> responseObserver) {
+        return new EventBatchStreamObserver<>(responseObserver, HubEventBatchProto::getEventList,
+                this::saveHubBatch);
+    }
+
+    private CompletableFuture<Void> saveSensorBatch(List<SensorEventProto> batch,
+                                                    long firstSequence,
+                                                    CollectBatchAckProto.Builder ack) {
+        return telemetryService.saveSensorEvents(batch)
+                .thenAccept(result -> applyResult(ack, firstSequence, result));
+    }
+
+    private CompletableFuture<Void> saveHubBatch(List<HubEventProto> batch,
+                                                 long firstSequence,
+                                                 CollectBatchAckProto.Builder ack) {
+        return telemetryService.saveHubEvents(batch)
+                .thenAccept(result -> applyResult(ack, firstSequence, result));
+    }
+
+    private void complete(StreamObserver<Empty> responseObserver, Throwable error, String eventType) {
+        if (error == null) {
             responseObserver.onNext(Empty.getDefaultInstance());
             responseObserver.onCompleted();
+            return;
+        }
 
-        } catch (Exception e) {
-            log.error("Error processing gRPC hub event", e);
-            responseObserver.onError(new StatusRuntimeException(
-                    Status.INTERNAL
-                            .withDescription(e.getMessage())
-                            .withCause(e)
-            ));
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        Status status = statusOf(cause);
+        metrics.rejected(status.getCode().name());
+        if (status.getCode() == Status.Code.RESOURCE_EXHAUSTED) {
+            log.warn("Rejected gRPC {} event: {}", eventType, cause.getMessage());
+        } else {
+            log.error("Error processing gRPC {} event", eventType, cause);
+        }
+        responseObserver.onError(new StatusRuntimeException(
+                status.withDescription(cause.getMessage())
+                        .withCause(cause)
+        ));
+    }
+
+    private Status statusOf(Throwable e) {
+        if (e instanceof InFlightLimitExceededException || e instanceof RateLimitExceededException) {
+            return Status.RESOURCE_EXHAUSTED;
+        }
+        if (e instanceof IllegalArgumentException) {
+            return Status.INVALID_ARGUMENT;
         }
+        return Status.INTERNAL;
+    }
+
+    private void applyResult(CollectBatchAckProto.Builder ack, long firstSequence, BatchResult result) {
+        ack.setAccepted(ack.getAccepted() + result.accepted());
+        result.failures().forEach((index, e) -> addError(ack, firstSequence + index, e));
+    }
+
+    private void addError(CollectBatchAckProto.Builder ack, long sequence, Throwable e) {
+        String code = statusOf(e).getCode().name();
+        metrics.rejected(code);
+        ack.setRejected(ack.getRejected() + 1)
+                .addError(EventErrorProto.newBuilder()
+                        .setSequence(sequence)
+                        .setCode(code)
+                        .setDescription(String.valueOf(e.getMessage())));
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package collectorMain.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import service.InFlightLimitExceededException;
+import service.IngestionMetrics;
+import service.RateLimitExceededException;
+import service.TelemetryService;
+
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping(path = "/events", consumes = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+public class RawEventController {
+
+    private final TelemetryService telemetryService;
+    private final IngestionMetrics metrics;
+
+    @PostMapping("/sensors")
+    public void collectSensorEvent(@RequestBody byte[] body) {
+        telemetryService.processRawSensorEvent(body);
+    }
+
+    @PostMapping("/hubs")
+    public void collectHubEvent(@RequestBody byte[] body) {
+        telemetryService.processRawHubEvent(body);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> handleInvalidEvent(IllegalArgumentException e) {
+        log.warn("Rejected raw event: {}", e.getMessage());
+        metrics.rejected("INVALID_ARGUMENT");
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler({InFlightLimitExceededException.class, RateLimitExceededException.class})
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Map<String, String> handleInFlightLimit(RuntimeException e) {
+        metrics.rejected("RESOURCE_EXHAUSTED");
+        return Map.of("error", e.getMessage());
+    }
+}
@@ -0,0 +1,15 @@
+package collectorMain.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.telemetry.logging.EventLogSampler;
+
+@Configuration
+public class LoggingConfig {
+
+    @Bean
+    public EventLogSampler eventLogSampler(@Value("${collector.logging.sample-rate:1}") int sampleRate) {
+        return new EventLogSampler(sampleRate);
+    }
+}
@@ -0,0 +1,51 @@
+package kafkaConfig;
+
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+final class AvroEncodingBuffer extends OutputStream {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int count;
+    private BinaryEncoder encoder;
+
+    <T> byte[] encode(T record, DatumWriter<T> writer) throws IOException {
+        count = 0;
+        encoder = EncoderFactory.get().directBinaryEncoder(this, encoder);
+        writer.write(record, encoder);
+        encoder.flush();
+
+        byte[] payload = Arrays.copyOf(buffer, count);
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        return payload;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(count + length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, minCapacity));
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package kafkaConfig;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class DiskSpool {
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final long maxBytes;
+    private final Deque<SpoolSegment> segments = new ArrayDeque<>();
+    private final AtomicLong pendingRecords = new AtomicLong();
+    private final LongAdder spooledRecords = new LongAdder();
+    private final LongAdder replayedRecords = new LongAdder();
+    private final LongAdder rejectedRecords = new LongAdder();
+    private final LongAdder droppedRecords = new LongAdder();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private long nextSegmentId;
+    private long nextSequence;
+    private long replayedSequence;
+    private volatile boolean replaying;
+
+    public DiskSpool(@Value("${collector.spool.enabled:false}") boolean enabled,
+                     @Value("${collector.spool.directory:${java.io.tmpdir}/collector-spool}") Path directory,
+                     @Value("${collector.spool.segment-bytes:67108864}") int segmentBytes,
+                     @Value("${collector.spool.max-bytes:1073741824}") long maxBytes) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        if (enabled) {
+            recover();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Флаг прохода воспроизведения держит бэклог до его конца: прямые отправки не обгоняют батч в полёте
+    public boolean hasBacklog() {
+        return pendingRecords.get() > 0 || replaying;
+    }
+
+    public synchronized boolean append(String topic,
+                                       String key,
+                                       byte[] value,
+                                       CompletableFuture<RecordMetadata> acked) {
+        if (!enabled) {
+            return false;
+        }
+
+        SpooledRecord record = new SpooledRecord(topic, key, value);
+        try {
+            SpoolSegment segment = segments.peekLast();
+            if (segment == null || !segment.append(record)) {
+                if ((long) (segments.size() + 1) * segmentBytes > maxBytes) {
+                    rejectedRecords.increment();
+                    log.error("Спул переполнен ({} байт), событие для топика {} отброшено", maxBytes, topic);
+                    return false;
+                }
+                if (segment != null) {
+                    segment.force();
+                }
+                segment = SpoolSegment.create(segmentPath(nextSegmentId), nextSegmentId++, segmentBytes);
+                segments.addLast(segment);
+                log.info("Создан сегмент спула: {}", segment.path());
+                if (!segment.append(record)) {
+                    rejectedRecords.increment();
+                    log.error("Событие размером {} байт не помещается в сегмент спула", value.length);
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            rejectedRecords.increment();
+            log.error("Ошибка записи в спул", e);
+            return false;
+        }
+
+        if (acked != null) {
+            waiters.addLast(new Waiter(nextSequence, acked));
+        }
+        nextSequence++;
+        pendingRecords.incrementAndGet();
+        spooledRecords.increment();
+        return true;
+    }
+
+    synchronized SpoolBatch readBatch(int maxRecords) {
+        dropConsumedSegments();
+        SpoolSegment segment = segments.peekFirst();
+        if (segment == null || !segment.hasUnread()) {
+            replaying = false;
+            return SpoolBatch.EMPTY;
+        }
+        replaying = true;
+
+        List<SpooledRecord> records = new ArrayList<>(maxRecords);
+        List<Integer> ends = new ArrayList<>(maxRecords);
+        int position = segment.readPosition();
+        while (records.size() < maxRecords && segment.hasUnreadAt(position)) {
+            records.add(segment.read(position));
+            position = segment.next(position);
+            ends.add(position);
+        }
+        return new SpoolBatch(segment, records, ends);
+    }
+
+    // Отброшенные при воспроизведении события тоже сдвигают позицию чтения: их ожидающие получают ошибку
+    void commit(SpoolBatch batch, List<Replayed> results) {
+        int committed = results.size();
+        if (committed == 0) {
+            return;
+        }
+        int dropped = (int) results.stream().filter(Replayed::dropped).count();
+        List<Runnable> completions = new ArrayList<>();
+        synchronized (this) {
+            SpoolSegment segment = batch.segment();
+            segment.commitRead(batch.ends().get(committed - 1));
+            pendingRecords.addAndGet(-committed);
+            replayedRecords.add(committed - dropped);
+            droppedRecords.add(dropped);
+            dropConsumedSegments();
+
+            long first = replayedSequence;
+            replayedSequence += committed;
+            while (!waiters.isEmpty() && waiters.peekFirst().sequence() < replayedSequence) {
+                Waiter waiter = waiters.pollFirst();
+                Replayed result = results.get((int) (waiter.sequence() - first));
+                completions.add(result.dropped()
+                        ? () -> waiter.acked().completeExceptionally(result.dropCause())
+                        : () -> waiter.acked().complete(result.metadata()));
+            }
+        }
+        completions.forEach(Runnable::run);
+    }
+
+    public long getPendingRecords() {
+        return pendingRecords.get();
+    }
+
+    public long getSpooledRecords() {
+        return spooledRecords.sum();
+    }
+
+    public long getReplayedRecords() {
+        return replayedRecords.sum();
+    }
+
+    public long getRejectedRecords() {
+        return rejectedRecords.sum();
+    }
+
+    public long getDroppedRecords() {
+        return droppedRecords.sum();
+    }
+
+    public synchronized long getSpoolBytes() {
+        return (long) segments.size() * segmentBytes;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        segments.forEach(SpoolSegment::force);
+        IllegalStateException stopped =
+                new IllegalStateException("Коллектор остановлен до воспроизведения события из спула");
+        waiters.forEach(waiter -> waiter.acked().completeExceptionally(stopped));
+        waiters.clear();
+    }
+
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                        .sorted()
+                        .toList();
+            }
+            for (Path file : files) {
+                long id = Long.parseLong(file.getFileName().toString().replace(SEGMENT_SUFFIX, ""));
+                SpoolSegment segment = SpoolSegment.open(file, id);
+                segments.addLast(segment);
+                pendingRecords.addAndGet(segment.countUnread());
+                nextSegmentId = id + 1;
+            }
+            nextSequence = pendingRecords.get();
+            if (!segments.isEmpty()) {
+                log.info("Восстановлен спул: сегментов={}, событий к отправке={}", segments.size(), pendingRecords.get());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть каталог спула " + directory, e);
+        }
+    }
+
+    private void dropConsumedSegments() {
+        while (segments.size() > 1 && !segments.peekFirst().hasUnread()) {
+            SpoolSegment segment = segments.pollFirst();
+            try {
+                Files.deleteIfExists(segment.path());
+                log.info("Сегмент спула воспроизведён и удалён: {}", segment.path());
+            } catch (IOException e) {
+                log.warn("Не удалось удалить сегмент спула {}", segment.path(), e);
+            }
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private record Waiter(long sequence, CompletableFuture<RecordMetadata> acked) {
+    }
+
+    record Replayed(RecordMetadata metadata, Exception dropCause) {
+        static Replayed acked(RecordMetadata metadata) {
+            return new Replayed(metadata, null);
+        }
+
+        static Replayed dropped(Exception cause) {
+            return new Replayed(null, cause);
+        }
+
+        boolean dropped() {
+            return dropCause != null;
+        }
+    }
+
+    record SpoolBatch(SpoolSegment segment, List<SpooledRecord> records, List<Integer> ends) {
+        static final SpoolBatch EMPTY = new SpoolBatch(null, List.of(), List.of());
+    }
+}
@@ -0,0 +1,27 @@
+package kafkaConfig;
+
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.util.concurrent.CompletableFuture;
+
+// accepted — событие подтверждено Kafka или записано в спул; acked — событие в Kafka, в том числе после воспроизведения спула
+public record EventDelivery(CompletableFuture<Void> accepted, CompletableFuture<RecordMetadata> acked) {
+
+    static EventDelivery pending() {
+        return new EventDelivery(new CompletableFuture<>(), new CompletableFuture<>());
+    }
+
+    void complete(RecordMetadata metadata) {
+        acked.complete(metadata);
+        accepted.complete(null);
+    }
+
+    void spooled() {
+        accepted.complete(null);
+    }
+
+    void fail(Throwable cause) {
+        acked.completeExceptionally(cause);
+        accepted.completeExceptionally(cause);
+    }
+}
@@ -1,75 +1,210 @@
 package kafkaConfig;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.avro.io.BinaryEncoder;
-import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.avro.specific.SpecificRecordBase;
-import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.RetriableException;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.kafka.telemetry.event.HubEventAvro;
 import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class KafkaEventProducer {
 
     private static final SpecificDatumWriter<SensorEventAvro> SENSOR_EVENT_WRITER =
             new SpecificDatumWriter<>(SensorEventAvro.class);
     private static final SpecificDatumWriter<HubEventAvro> HUB_EVENT_WRITER =
             new SpecificDatumWriter<>(HubEventAvro.class);
+    private static final int ENCODING_BUFFER_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
 
-    private final KafkaProducer<String, byte[]> kafkaProducer;
+    private final BlockingQueue<AvroEncodingBuffer> encodingBuffers =
+            new ArrayBlockingQueue<>(ENCODING_BUFFER_POOL_SIZE);
+    // Запись в спул может создать сегмент и сбросить предыдущий на диск — не на I/O-потоке продюсера
+    private final ExecutorService spoolExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "collector-spool-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    @Value("${kafka.topics.sensors}")
-    private String sensorsTopic;
+    private final Producer<String, byte[]> sensorsProducer;
+    private final Producer<String, byte[]> hubsProducer;
+    private final DiskSpool diskSpool;
+    private final ProducerMetrics sensorMetrics;
+    private final ProducerMetrics hubMetrics;
+    private final String sensorsTopic;
+    private final String hubsTopic;
+    private final SensorKeyMode sensorKeyMode;
 
-    @Value("${kafka.topics.hubs}")
-    private String hubsTopic;
+    public KafkaEventProducer(@Qualifier("sensorsKafkaProducer") Producer<String, byte[]> sensorsProducer,
+                              @Qualifier("hubsKafkaProducer") Producer<String, byte[]> hubsProducer,
+                              DiskSpool diskSpool,
+                              MeterRegistry meterRegistry,
+                              @Value("${kafka.topics.sensors}") String sensorsTopic,
+                              @Value("${kafka.topics.hubs}") String hubsTopic,
+                              @Value("${kafka.partitioning.sensor-key:HUB_ID}") SensorKeyMode sensorKeyMode) {
+        this.sensorsProducer = sensorsProducer;
+        this.hubsProducer = hubsProducer;
+        this.diskSpool = diskSpool;
+        this.sensorMetrics = new ProducerMetrics(meterRegistry, "sensor");
+        this.hubMetrics = new ProducerMetrics(meterRegistry, "hub");
+        this.sensorsTopic = sensorsTopic;
+        this.hubsTopic = hubsTopic;
+        this.sensorKeyMode = sensorKeyMode;
+    }
+
+    public EventDelivery send(SensorEventAvro event, boolean logEvent) {
+        long start = System.nanoTime();
+        byte[] eventBytes = serialize(event);
+        sensorMetrics.serialized(System.nanoTime() - start);
+        String key = sensorKeyMode == SensorKeyMode.HUB_ID ? event.getHubId() : event.getId();
+        return send(sensorsTopic, key, eventBytes, "SensorEventAvro", sensorMetrics, logEvent);
+    }
 
-    public void send(SensorEventAvro event) {
-        byte[] eventBytes = serializeAvro(event, SENSOR_EVENT_WRITER);
-        ProducerRecord<String, byte[]> record = new ProducerRecord<>(sensorsTopic, event.getId().toString(), eventBytes);
+    public EventDelivery send(HubEventAvro event, boolean logEvent) {
+        long start = System.nanoTime();
+        byte[] eventBytes = serialize(event);
+        hubMetrics.serialized(System.nanoTime() - start);
+        return send(hubsTopic, event.getHubId(), eventBytes, "HubEventAvro", hubMetrics, logEvent);
+    }
+
+    // Пока спул не воспроизведён до конца, новые события идут в его хвост, чтобы не обогнать старые.
+    // Событие, чья отправка упала уже после подтверждения более поздних, воспроизводится после них.
+    private EventDelivery send(String topic,
+                               String key,
+                               byte[] eventBytes,
+                               String eventType,
+                               ProducerMetrics metrics,
+                               boolean logEvent) {
+        EventDelivery delivery = EventDelivery.pending();
+        if (diskSpool.hasBacklog()) {
+            spool(topic, key, eventBytes, delivery, metrics, null);
+            return delivery;
+        }
 
-        kafkaProducer.send(record, (metadata, exception) -> {
-            if (exception == null) {
-                log.debug("SensorEventAvro отправлен: topic={}, partition={}, offset={}",
-                        metadata.topic(), metadata.partition(), metadata.offset());
-            } else {
-                log.error("Ошибка отправки SensorEventAvro", exception);
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, key, eventBytes);
+        long start = System.nanoTime();
+        try {
+            producerFor(topic).send(record, (metadata, exception) -> {
+                if (exception == null) {
+                    metrics.acked(System.nanoTime() - start);
+                    if (logEvent && log.isDebugEnabled()) {
+                        log.debug("{} отправлен: topic={}, partition={}, offset={}",
+                                eventType, metadata.topic(), metadata.partition(), metadata.offset());
+                    }
+                    delivery.complete(metadata);
+                } else if (isRetriable(exception)) {
+                    metrics.failed(System.nanoTime() - start);
+                    log.error("Ошибка отправки {}", eventType, exception);
+                    spool(topic, key, eventBytes, delivery, metrics, exception);
+                } else {
+                    metrics.failed(System.nanoTime() - start);
+                    log.error("{} отклонён Kafka, повтор бесполезен", eventType, exception);
+                    delivery.fail(exception);
+                }
+            });
+            metrics.sent(System.nanoTime() - start);
+        } catch (KafkaException e) {
+            if (!diskSpool.isEnabled() || !isRetriable(e)) {
+                throw e;
             }
-        });
+            log.warn("Продюсер перегружен, {} записывается в спул: {}", eventType, e.getMessage());
+            spool(topic, key, eventBytes, delivery, metrics, e);
+        }
+        return delivery;
+    }
+
+    Producer<String, byte[]> producerFor(String topic) {
+        return topic.equals(hubsTopic) ? hubsProducer : sensorsProducer;
     }
 
-    public void send(HubEventAvro event) {
-        byte[] eventBytes = serializeAvro(event, HUB_EVENT_WRITER);
-        ProducerRecord<String, byte[]> record = new ProducerRecord<>(hubsTopic, event.getHubId().toString(), eventBytes);
+    // Слишком большое событие, нет прав на топик, ошибка сериализации — повтор из спула их не исправит
+    static boolean isRetriable(Throwable exception) {
+        return exception instanceof RetriableException;
+    }
 
-        kafkaProducer.send(record, (metadata, exception) -> {
-            if (exception == null) {
-                log.debug("HubEventAvro отправлен: topic={}, partition={}, offset={}",
-                        metadata.topic(), metadata.partition(), metadata.offset());
-            } else {
-                log.error("Ошибка отправки HubEventAvro", exception);
+    private void spool(String topic,
+                       String key,
+                       byte[] eventBytes,
+                       EventDelivery delivery,
+                       ProducerMetrics metrics,
+                       Exception cause) {
+        if (!diskSpool.isEnabled()) {
+            append(topic, key, eventBytes, delivery, metrics, cause);
+            return;
+        }
+        try {
+            spoolExecutor.execute(() -> append(topic, key, eventBytes, delivery, metrics, cause));
+        } catch (RejectedExecutionException e) {
+            metrics.spoolRejected();
+            delivery.fail(cause != null ? cause : e);
+        }
+    }
+
+    private void append(String topic,
+                        String key,
+                        byte[] eventBytes,
+                        EventDelivery delivery,
+                        ProducerMetrics metrics,
+                        Exception cause) {
+        if (diskSpool.append(topic, key, eventBytes, delivery.acked())) {
+            metrics.spooled();
+            delivery.spooled();
+        } else {
+            metrics.spoolRejected();
+            delivery.fail(cause != null
+                    ? cause
+                    : new IllegalStateException("Спул недоступен для топика " + topic));
+        }
+    }
+
+    @PreDestroy
+    public void shutdownSpoolExecutor() {
+        spoolExecutor.shutdown();
+        try {
+            // Спул закрывается после продюсера событий: дописываем то, что уже стоит в очереди
+            if (!spoolExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Запись в спул не завершилась до остановки коллектора");
             }
-        });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public byte[] serialize(SensorEventAvro event) {
+        return serializeAvro(event, SENSOR_EVENT_WRITER);
+    }
+
+    public byte[] serialize(HubEventAvro event) {
+        return serializeAvro(event, HUB_EVENT_WRITER);
     }
 
     private <T extends SpecificRecordBase> byte[] serializeAvro(T record, SpecificDatumWriter<T> writer) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
-            writer.write(record, encoder);
-            encoder.flush();
-            return outputStream.toByteArray();
+        AvroEncodingBuffer buffer = encodingBuffers.poll();
+        if (buffer == null) {
+            buffer = new AvroEncodingBuffer();
+        }
+        try {
+            return buffer.encode(record, writer);
         } catch (IOException e) {
             throw new RuntimeException("Ошибка сериализации Avro-объекта: " + e.getMessage(), e);
+        } finally {
+            encodingBuffers.offer(buffer);
         }
     }
 }
\ No newline at end of file
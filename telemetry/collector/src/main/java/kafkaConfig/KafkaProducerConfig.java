@@ -1,5 +1,6 @@
 package kafkaConfig;
 
+import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
@@ -10,6 +11,7 @@ import org.springframework.context.annotation.Configuration;
 
 import java.util.Properties;
 
+@Slf4j
 @Configuration
 public class KafkaProducerConfig {
 
@@ -22,15 +24,46 @@ public class KafkaProducerConfig {
     @Value("${kafka.producer.acks}")
     private String acks;
 
+    @Value("${kafka.producer.profiles.sensors:THROUGHPUT}")
+    private ProducerProfile sensorsProfile;
+
+    @Value("${kafka.producer.profiles.hubs:LATENCY}")
+    private ProducerProfile hubsProfile;
+
+    @Value("${collector.spool.enabled:false}")
+    private boolean spoolEnabled;
+
+    @Value("${collector.spool.max-block-ms:50}")
+    private long spoolMaxBlockMs;
+
     @Bean(destroyMethod = "close")
-    public KafkaProducer<String, byte[]> kafkaProducer() {
+    public KafkaProducer<String, byte[]> sensorsKafkaProducer() {
+        return createProducer("sensors", sensorsProfile);
+    }
+
+    @Bean(destroyMethod = "close")
+    public KafkaProducer<String, byte[]> hubsKafkaProducer() {
+        return createProducer("hubs", hubsProfile);
+    }
+
+    private KafkaProducer<String, byte[]> createProducer(String name, ProducerProfile profile) {
         Properties properties = new Properties();
         properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        properties.put(ProducerConfig.CLIENT_ID_CONFIG, clientId);
+        properties.put(ProducerConfig.CLIENT_ID_CONFIG, clientId + "-" + name);
         properties.put(ProducerConfig.ACKS_CONFIG, acks);
         properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
         properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        profile.applyTo(properties);
+        if (!"all".equals(acks) && !"-1".equals(acks)) {
+            properties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
+        }
+        // Со спулом send() не должен ждать метаданные или место в буфере 60 с на потоке gRPC:
+        // короткий таймаут быстро переводит событие в спул
+        if (spoolEnabled) {
+            properties.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, spoolMaxBlockMs);
+        }
 
+        log.info("Kafka producer for {} uses profile {}", name, profile);
         return new KafkaProducer<>(properties);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package kafkaConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+final class ProducerMetrics {
+
+    private final Timer serialize;
+    private final Timer send;
+    private final Timer acked;
+    private final Timer failed;
+    private final Counter spooled;
+    private final Counter spoolRejected;
+
+    ProducerMetrics(MeterRegistry registry, String type) {
+        this.serialize = stageTimer(registry, "serialize", type);
+        this.send = stageTimer(registry, "send", type);
+        this.acked = ackTimer(registry, type, "success");
+        this.failed = ackTimer(registry, type, "error");
+        this.spooled = spoolCounter(registry, type, "stored");
+        this.spoolRejected = spoolCounter(registry, type, "rejected");
+    }
+
+    void serialized(long nanos) {
+        serialize.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void sent(long nanos) {
+        send.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void acked(long nanos) {
+        acked.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void failed(long nanos) {
+        failed.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void spooled() {
+        spooled.increment();
+    }
+
+    void spoolRejected() {
+        spoolRejected.increment();
+    }
+
+    private static Counter spoolCounter(MeterRegistry registry, String type, String outcome) {
+        return Counter.builder("collector.kafka.spooled")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static Timer stageTimer(MeterRegistry registry, String stage, String type) {
+        return Timer.builder("collector.stage.duration")
+                .tag("stage", stage)
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer ackTimer(MeterRegistry registry, String type, String outcome) {
+        return Timer.builder("collector.kafka.ack.latency")
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
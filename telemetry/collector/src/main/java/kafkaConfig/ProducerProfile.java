@@ -0,0 +1,36 @@
+package kafkaConfig;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Map;
+import java.util.Properties;
+
+public enum ProducerProfile {
+    DEFAULT(Map.of()),
+    THROUGHPUT(Map.of(
+            ProducerConfig.BATCH_SIZE_CONFIG, 262144,
+            ProducerConfig.LINGER_MS_CONFIG, 20,
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4",
+            ProducerConfig.BUFFER_MEMORY_CONFIG, 134217728L,
+            ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+            ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5
+    )),
+    LATENCY(Map.of(
+            ProducerConfig.BATCH_SIZE_CONFIG, 16384,
+            ProducerConfig.LINGER_MS_CONFIG, 0,
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, "none",
+            ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432L,
+            ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+            ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5
+    ));
+
+    private final Map<String, Object> settings;
+
+    ProducerProfile(Map<String, Object> settings) {
+        this.settings = settings;
+    }
+
+    public void applyTo(Properties properties) {
+        properties.putAll(settings);
+    }
+}
@@ -0,0 +1,6 @@
+package kafkaConfig;
+
+public enum SensorKeyMode {
+    SENSOR_ID,
+    HUB_ID
+}
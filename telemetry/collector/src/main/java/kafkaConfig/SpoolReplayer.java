@@ -0,0 +1,141 @@
+package kafkaConfig;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SpoolReplayer {
+
+    private final KafkaEventProducer eventProducer;
+    private final DiskSpool diskSpool;
+
+    @Value("${collector.spool.replay-batch-size:500}")
+    private int replayBatchSize;
+
+    @Value("${collector.spool.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${collector.spool.max-attempts:10}")
+    private int maxAttempts;
+
+    // Сколько проходов подряд не удалось отправить событие в голове спула, хотя Kafka принимала следующие
+    private int headAttempts;
+
+    @Scheduled(fixedDelayString = "${collector.spool.replay-interval-ms:1000}")
+    public void replay() {
+        if (!diskSpool.isEnabled() || !diskSpool.hasBacklog()) {
+            return;
+        }
+
+        while (true) {
+            DiskSpool.SpoolBatch batch = diskSpool.readBatch(replayBatchSize);
+            if (batch.records().isEmpty()) {
+                return;
+            }
+
+            ReplayPass pass = send(batch.records());
+            List<DiskSpool.Replayed> results = pass.results();
+            if (!results.isEmpty()) {
+                headAttempts = 0;
+            }
+            // Недоступность Kafka не считается попыткой: иначе долгий простой выбросил бы весь спул
+            if (pass.failure() != null && pass.laterAcked() && ++headAttempts >= maxAttempts) {
+                drop(batch.records().get(results.size()), pass.failure());
+                results.add(DiskSpool.Replayed.dropped(pass.failure()));
+                headAttempts = 0;
+            }
+
+            diskSpool.commit(batch, results);
+            if (results.size() < batch.records().size()) {
+                log.warn("Воспроизведение спула приостановлено, осталось событий: {}", diskSpool.getPendingRecords());
+                return;
+            }
+            log.debug("Из спула воспроизведено {} событий, осталось {}", results.size(), diskSpool.getPendingRecords());
+        }
+    }
+
+    // Результаты идут подряд с начала батча; события с неповторяемой ошибкой отбрасываются сразу,
+    // первая повторяемая ошибка обрывает подтверждённый префикс
+    private ReplayPass send(List<SpooledRecord> records) {
+        List<Future<RecordMetadata>> deliveries = new ArrayList<>(records.size());
+        Exception failure = null;
+        try {
+            for (SpooledRecord record : records) {
+                deliveries.add(eventProducer.producerFor(record.topic())
+                        .send(new ProducerRecord<>(record.topic(), record.key(), record.value())));
+            }
+        } catch (KafkaException e) {
+            failure = e;
+        }
+
+        List<DiskSpool.Replayed> results = new ArrayList<>(records.size());
+        Exception headFailure = null;
+        boolean laterAcked = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (int i = 0; i < deliveries.size(); i++) {
+            try {
+                RecordMetadata metadata = deliveries.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (headFailure == null) {
+                    results.add(DiskSpool.Replayed.acked(metadata));
+                } else {
+                    laterAcked = true;
+                }
+            } catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception exception ? exception : e;
+                if (headFailure != null) {
+                    continue;
+                }
+                if (KafkaEventProducer.isRetriable(cause)) {
+                    headFailure = cause;
+                } else {
+                    drop(records.get(i), cause);
+                    results.add(DiskSpool.Replayed.dropped(cause));
+                }
+            } catch (TimeoutException e) {
+                if (headFailure == null) {
+                    log.warn("Kafka недоступна для воспроизведения спула: {}", e.getMessage());
+                    return new ReplayPass(results, e, false);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new ReplayPass(results, headFailure != null ? headFailure : e, laterAcked);
+            }
+        }
+
+        if (headFailure == null && failure != null) {
+            if (KafkaEventProducer.isRetriable(failure)) {
+                headFailure = failure;
+            } else {
+                drop(records.get(results.size()), failure);
+                results.add(DiskSpool.Replayed.dropped(failure));
+            }
+        }
+        if (headFailure != null) {
+            log.warn("Kafka недоступна для воспроизведения спула: {}", headFailure.getMessage());
+        }
+        return new ReplayPass(results, headFailure, laterAcked);
+    }
+
+    private void drop(SpooledRecord record, Exception cause) {
+        log.error("Событие из спула отброшено: topic={}, key={}, size={}, причина: {}",
+                record.topic(), record.key(), record.value().length, cause.toString());
+    }
+
+    private record ReplayPass(List<DiskSpool.Replayed> results, Exception failure, boolean laterAcked) {
+    }
+}
@@ -0,0 +1,158 @@
+package kafkaConfig;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+final class SpoolSegment {
+
+    private static final int HEADER_BYTES = Long.BYTES;
+    private static final int RECORD_OVERHEAD = Integer.BYTES * 2;
+
+    private final Path path;
+    private final long id;
+    private final MappedByteBuffer buffer;
+    private int readPosition;
+    private int writePosition;
+
+    private SpoolSegment(Path path, long id, MappedByteBuffer buffer) {
+        this.path = path;
+        this.id = id;
+        this.buffer = buffer;
+    }
+
+    static SpoolSegment create(Path path, long id, int size) throws IOException {
+        SpoolSegment segment = new SpoolSegment(path, id, map(path, size));
+        segment.readPosition = HEADER_BYTES;
+        segment.writePosition = HEADER_BYTES;
+        segment.buffer.putLong(0, HEADER_BYTES);
+        return segment;
+    }
+
+    static SpoolSegment open(Path path, long id) throws IOException {
+        SpoolSegment segment = new SpoolSegment(path, id, map(path, (int) Files.size(path)));
+        segment.readPosition = (int) Math.max(HEADER_BYTES, segment.buffer.getLong(0));
+        segment.writePosition = segment.scanEnd(segment.readPosition);
+        return segment;
+    }
+
+    long id() {
+        return id;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    boolean hasUnread() {
+        return readPosition < writePosition;
+    }
+
+    boolean hasUnreadAt(int position) {
+        return position < writePosition;
+    }
+
+    int readPosition() {
+        return readPosition;
+    }
+
+    long countUnread() {
+        long count = 0;
+        for (int position = readPosition; position < writePosition; position = next(position)) {
+            count++;
+        }
+        return count;
+    }
+
+    boolean append(SpooledRecord record) {
+        byte[] topic = record.topic().getBytes(StandardCharsets.UTF_8);
+        byte[] key = record.key() != null ? record.key().getBytes(StandardCharsets.UTF_8) : null;
+        int bodyLength = Short.BYTES + topic.length + Short.BYTES + (key != null ? key.length : 0)
+                + record.value().length;
+        if (writePosition + RECORD_OVERHEAD + bodyLength + Integer.BYTES > buffer.capacity()) {
+            return false;
+        }
+
+        int bodyStart = writePosition + RECORD_OVERHEAD;
+        buffer.position(bodyStart);
+        buffer.putShort((short) topic.length).put(topic);
+        buffer.putShort((short) (key != null ? key.length : -1));
+        if (key != null) {
+            buffer.put(key);
+        }
+        buffer.put(record.value());
+
+        buffer.putInt(writePosition + Integer.BYTES, checksum(bodyStart, bodyLength));
+        buffer.putInt(writePosition, bodyLength);
+        writePosition = bodyStart + bodyLength;
+        return true;
+    }
+
+    SpooledRecord read(int position) {
+        int bodyLength = buffer.getInt(position);
+        buffer.position(position + RECORD_OVERHEAD);
+
+        byte[] topic = new byte[buffer.getShort()];
+        buffer.get(topic);
+        short keyLength = buffer.getShort();
+        String key = null;
+        if (keyLength >= 0) {
+            byte[] keyBytes = new byte[keyLength];
+            buffer.get(keyBytes);
+            key = new String(keyBytes, StandardCharsets.UTF_8);
+        }
+        byte[] value = new byte[position + RECORD_OVERHEAD + bodyLength - buffer.position()];
+        buffer.get(value);
+
+        return new SpooledRecord(new String(topic, StandardCharsets.UTF_8), key, value);
+    }
+
+    int next(int position) {
+        return position + RECORD_OVERHEAD + buffer.getInt(position);
+    }
+
+    void commitRead(int position) {
+        readPosition = position;
+        buffer.putLong(0, position);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    private int scanEnd(int from) {
+        int position = from;
+        while (position + RECORD_OVERHEAD <= buffer.capacity()) {
+            int bodyLength = buffer.getInt(position);
+            int bodyStart = position + RECORD_OVERHEAD;
+            if (bodyLength <= 0 || bodyStart + bodyLength > buffer.capacity()
+                    || buffer.getInt(position + Integer.BYTES) != checksum(bodyStart, bodyLength)) {
+                break;
+            }
+            position = bodyStart + bodyLength;
+        }
+        return position;
+    }
+
+    private int checksum(int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package kafkaConfig;
+
+record SpooledRecord(String topic, String key, byte[] value) {
+}
@@ -0,0 +1,10 @@
+package service;
+
+import java.util.Map;
+
+public record BatchResult(int accepted, Map<Integer, Throwable> failures) {
+
+    public int rejected() {
+        return failures.size();
+    }
+}
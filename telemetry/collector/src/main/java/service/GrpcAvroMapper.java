@@ -0,0 +1,100 @@
+package service;
+
+import com.google.protobuf.Timestamp;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.grpc.telemetry.event.*;
+import ru.yandex.practicum.kafka.telemetry.event.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class GrpcAvroMapper {
+
+    public SensorEventAvro toAvro(SensorEventProto proto) {
+        Object payload = switch (proto.getPayloadCase()) {
+            case LIGHT_SENSOR_EVENT -> toAvro(proto.getLightSensorEvent());
+            case TEMPERATURE_SENSOR_EVENT -> toAvro(proto.getTemperatureSensorEvent());
+            case SWITCH_SENSOR_EVENT -> toAvro(proto.getSwitchSensorEvent());
+            case CLIMATE_SENSOR_EVENT -> toAvro(proto.getClimateSensorEvent());
+            case MOTION_SENSOR_EVENT -> toAvro(proto.getMotionSensorEvent());
+            case PAYLOAD_NOT_SET -> throw new IllegalArgumentException("Sensor event payload not set in SensorEventProto");
+        };
+
+        return new SensorEventAvro(proto.getId(), proto.getHubId(), convertTimestamp(proto.getTimestamp()), payload);
+    }
+
+    public HubEventAvro toAvro(HubEventProto proto) {
+        Object payload = switch (proto.getPayloadCase()) {
+            case DEVICE_ADDED -> toAvro(proto.getDeviceAdded());
+            case DEVICE_REMOVED -> new DeviceRemovedEventAvro(proto.getDeviceRemoved().getId());
+            case SCENARIO_ADDED -> toAvro(proto.getScenarioAdded());
+            case SCENARIO_REMOVED -> new ScenarioRemovedEventAvro(proto.getScenarioRemoved().getName());
+            case PAYLOAD_NOT_SET -> throw new IllegalArgumentException("Hub event payload not set in HubEventProto");
+        };
+
+        return new HubEventAvro(proto.getHubId(), convertTimestamp(proto.getTimestamp()), payload);
+    }
+
+    private LightSensorAvro toAvro(LightSensorEvent payload) {
+        return new LightSensorAvro(payload.getLinkQuality(), payload.getLuminosity());
+    }
+
+    private TemperatureSensorAvro toAvro(TemperatureSensorEvent payload) {
+        int temperatureC = payload.getTemperatureC();
+        return new TemperatureSensorAvro(temperatureC, (int) (temperatureC * 1.8 + 32));
+    }
+
+    private SwitchSensorAvro toAvro(SwitchSensorEvent payload) {
+        return new SwitchSensorAvro(payload.getState());
+    }
+
+    private ClimateSensorAvro toAvro(ClimateSensorEvent payload) {
+        return new ClimateSensorAvro(payload.getTemperatureC(), payload.getHumidity(), payload.getCo2Level());
+    }
+
+    private MotionSensorAvro toAvro(MotionSensorEvent payload) {
+        return new MotionSensorAvro(payload.getLinkQuality(), payload.getMotion(), payload.getVoltage());
+    }
+
+    private DeviceAddedEventAvro toAvro(DeviceAddedEventProto payload) {
+        return new DeviceAddedEventAvro(payload.getId(), DeviceTypeAvro.valueOf(payload.getType().name()));
+    }
+
+    private ScenarioAddedEventAvro toAvro(ScenarioAddedEventProto payload) {
+        List<ScenarioConditionAvro> conditions = new ArrayList<>(payload.getConditionCount());
+        for (ScenarioConditionProto condition : payload.getConditionList()) {
+            conditions.add(new ScenarioConditionAvro(
+                    condition.getSensorId(),
+                    ConditionTypeAvro.valueOf(condition.getType().name()),
+                    ConditionOperationAvro.valueOf(condition.getOperation().name()),
+                    extractConditionValue(condition)));
+        }
+
+        List<DeviceActionAvro> actions = new ArrayList<>(payload.getActionCount());
+        for (DeviceActionProto action : payload.getActionList()) {
+            actions.add(new DeviceActionAvro(
+                    action.getSensorId(),
+                    ActionTypeAvro.valueOf(action.getType().name()),
+                    action.getValue()));
+        }
+
+        return new ScenarioAddedEventAvro(payload.getName(), conditions, actions);
+    }
+
+    private Instant convertTimestamp(Timestamp timestamp) {
+        if (timestamp.getSeconds() == 0 && timestamp.getNanos() == 0) {
+            throw new IllegalArgumentException("Event timestamp not set");
+        }
+        return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+    }
+
+    private Object extractConditionValue(ScenarioConditionProto proto) {
+        return switch (proto.getValueCase()) {
+            case BOOL_VALUE -> proto.getBoolValue();
+            case INT_VALUE -> proto.getIntValue();
+            case VALUE_NOT_SET -> null;
+        };
+    }
+}
@@ -0,0 +1,6 @@
+package service;
+
+public enum GrpcMappingMode {
+    DTO,
+    DIRECT
+}
@@ -0,0 +1,135 @@
+package service;
+
+import collectorMain.config.HubRateLimitProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+public class HubRateLimiter {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final HubRateLimitProperties properties;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    public HubRateLimiter(HubRateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public boolean tryAcquire(String hubId) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+
+        TokenBucket bucket = buckets.get(hubId);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(hubId, key -> new TokenBucket(properties.limitFor(key)));
+        }
+        if (bucket.tryAcquire(System.nanoTime())) {
+            admitted.increment();
+            return true;
+        }
+        bucket.throttled.increment();
+        throttled.increment();
+        return false;
+    }
+
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    public Map<String, Long> getThrottledByHub() {
+        Map<String, Long> result = new HashMap<>();
+        buckets.forEach((hubId, bucket) -> {
+            long count = bucket.throttled.sum();
+            if (count > 0) {
+                result.put(hubId, count);
+            }
+        });
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${collector.rate-limit.report-interval-ms:60000}")
+    public void report() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Map<String, Long> throttledHubs = new HashMap<>();
+        buckets.forEach((hubId, bucket) -> {
+            long count = bucket.throttledSinceReport.sumThenReset();
+            if (count > 0) {
+                throttledHubs.put(hubId, count);
+            }
+        });
+        if (!throttledHubs.isEmpty()) {
+            log.warn("Hubs throttled since last report: {}", throttledHubs);
+        }
+        evictIdleBuckets(System.nanoTime());
+        log.info("Hub rate limiting: admitted={}, throttled={}", getAdmittedCount(), getThrottledCount());
+    }
+
+    // Hub ids come from clients; a bucket that has refilled completely behaves like a new one and can go.
+    private void evictIdleBuckets(long now) {
+        buckets.forEach((hubId, bucket) -> {
+            if (bucket.isIdle(now)) {
+                buckets.remove(hubId, bucket);
+            }
+        });
+    }
+
+    public int getTrackedHubs() {
+        return buckets.size();
+    }
+
+    // GCRA: a single CAS on the theoretical arrival time replaces a locked refill/take pair.
+    private static final class TokenBucket {
+        private final long emissionIntervalNanos;
+        private final long toleranceNanos;
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder throttledSinceReport = new LongAdder();
+
+        private TokenBucket(HubRateLimitProperties.Limit limit) {
+            this.emissionIntervalNanos = Math.max(1L, (long) (NANOS_PER_SECOND / limit.getEventsPerSecond()));
+            this.toleranceNanos = emissionIntervalNanos * Math.max(0, limit.getBurst() - 1);
+        }
+
+        private boolean isIdle(long now) {
+            long current = theoreticalArrival.get();
+            return current == Long.MIN_VALUE || current - now <= 0;
+        }
+
+        private boolean tryAcquire(long now) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long start = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long next = start + emissionIntervalNanos;
+                if (next - now > toleranceNanos + emissionIntervalNanos) {
+                    throttledSinceReport.increment();
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package service;
+
+public class InFlightLimitExceededException extends RuntimeException {
+
+    public InFlightLimitExceededException(String hubId) {
+        super("Too many events in flight for hub " + hubId);
+    }
+}
@@ -0,0 +1,54 @@
+package service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+@Component
+public class InFlightWindow {
+
+    private final int maxInFlight;
+    private final int maxInFlightPerHub;
+    private final Semaphore processPermits;
+    // Hub ids come from clients, so an entry lives only while the hub has records in flight.
+    private final Map<String, Integer> hubInFlight = new ConcurrentHashMap<>();
+
+    public InFlightWindow(@Value("${collector.delivery.max-in-flight:10000}") int maxInFlight,
+                          @Value("${collector.delivery.max-in-flight-per-hub:1000}") int maxInFlightPerHub) {
+        this.maxInFlight = maxInFlight;
+        this.maxInFlightPerHub = maxInFlightPerHub;
+        this.processPermits = new Semaphore(maxInFlight);
+    }
+
+    public boolean tryAcquire(String hubId) {
+        if (!processPermits.tryAcquire()) {
+            return false;
+        }
+        if (hubInFlight.merge(hubId, 1, Integer::sum) > maxInFlightPerHub) {
+            releaseHub(hubId);
+            processPermits.release();
+            return false;
+        }
+        return true;
+    }
+
+    public void release(String hubId) {
+        releaseHub(hubId);
+        processPermits.release();
+    }
+
+    public int getInFlight() {
+        return maxInFlight - processPermits.availablePermits();
+    }
+
+    public int getTrackedHubs() {
+        return hubInFlight.size();
+    }
+
+    private void releaseHub(String hubId) {
+        hubInFlight.computeIfPresent(hubId, (key, count) -> count > 1 ? count - 1 : null);
+    }
+}
@@ -0,0 +1,88 @@
+package service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.grpc.telemetry.event.HubEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class IngestionMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<SensorEventProto.PayloadCase, Counter> sensorEvents =
+            new EnumMap<>(SensorEventProto.PayloadCase.class);
+    private final Map<HubEventProto.PayloadCase, Counter> hubEvents =
+            new EnumMap<>(HubEventProto.PayloadCase.class);
+    private final Map<Class<?>, Counter> rawSensorEvents = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Counter> rawHubEvents = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+    private final Timer sensorMapping;
+    private final Timer hubMapping;
+
+    public IngestionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (SensorEventProto.PayloadCase payload : SensorEventProto.PayloadCase.values()) {
+            sensorEvents.put(payload, received("sensor", "grpc", payload.name()));
+        }
+        for (HubEventProto.PayloadCase payload : HubEventProto.PayloadCase.values()) {
+            hubEvents.put(payload, received("hub", "grpc", payload.name()));
+        }
+        this.sensorMapping = stageTimer("map", "sensor");
+        this.hubMapping = stageTimer("map", "hub");
+    }
+
+    public void received(SensorEventProto event) {
+        sensorEvents.get(event.getPayloadCase()).increment();
+    }
+
+    public void received(HubEventProto event) {
+        hubEvents.get(event.getPayloadCase()).increment();
+    }
+
+    public void receivedRawSensor(Object payload) {
+        rawSensorEvents.computeIfAbsent(payload.getClass(),
+                type -> received("sensor", "http", type.getSimpleName())).increment();
+    }
+
+    public void receivedRawHub(Object payload) {
+        rawHubEvents.computeIfAbsent(payload.getClass(),
+                type -> received("hub", "http", type.getSimpleName())).increment();
+    }
+
+    public void sensorMapped(long nanos) {
+        sensorMapping.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void hubMapped(long nanos) {
+        hubMapping.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void rejected(String code) {
+        rejections.computeIfAbsent(code, key -> Counter.builder("collector.events.rejected")
+                .tag("code", key)
+                .register(registry)).increment();
+    }
+
+    private Counter received(String type, String source, String payload) {
+        return Counter.builder("collector.events.received")
+                .tag("type", type)
+                .tag("source", source)
+                .tag("payload", payload)
+                .register(registry);
+    }
+
+    private Timer stageTimer(String stage, String type) {
+        return Timer.builder("collector.stage.duration")
+                .tag("stage", stage)
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,8 @@
+package service;
+
+public class RateLimitExceededException extends RuntimeException {
+
+    public RateLimitExceededException(String hubId) {
+        super("Rate limit exceeded for hub " + hubId);
+    }
+}
@@ -0,0 +1,300 @@
+package service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.kafka.telemetry.event.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+@Component
+public class RawEventParser {
+
+    private final JsonFactory jsonFactory;
+
+    private final Map<String, Function<RawFields, Object>> sensorPayloadBuilders = Map.of(
+            "LIGHT_SENSOR", this::toLightSensorAvro,
+            "TEMPERATURE_SENSOR", this::toTemperatureSensorAvro,
+            "SWITCH_SENSOR", this::toSwitchSensorAvro,
+            "CLIMATE_SENSOR", this::toClimateSensorAvro,
+            "MOTION_SENSOR", this::toMotionSensorAvro
+    );
+
+    private final Map<String, Function<RawFields, Object>> hubPayloadBuilders = Map.of(
+            "DEVICE_ADDED", this::toDeviceAddedEventAvro,
+            "DEVICE_REMOVED", this::toDeviceRemovedEventAvro,
+            "SCENARIO_ADDED", this::toScenarioAddedEventAvro,
+            "SCENARIO_REMOVED", this::toScenarioRemovedEventAvro
+    );
+
+    public RawEventParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public SensorEventAvro parseSensorEvent(byte[] body) {
+        RawFields fields = parse(body);
+
+        Function<RawFields, Object> payloadBuilder = sensorPayloadBuilders.get(
+                fields.eventType != null ? fields.eventType : String.valueOf(fields.type));
+        if (payloadBuilder == null) {
+            payloadBuilder = inferSensorPayloadBuilder(fields);
+        }
+
+        return new SensorEventAvro(
+                require(fields.id, "id"),
+                require(fields.hubId, "hubId"),
+                require(fields.timestamp, "timestamp"),
+                payloadBuilder.apply(fields));
+    }
+
+    public HubEventAvro parseHubEvent(byte[] body) {
+        RawFields fields = parse(body);
+
+        String eventType = fields.type != null ? fields.type : fields.eventType;
+        Function<RawFields, Object> payloadBuilder = hubPayloadBuilders.get(String.valueOf(eventType));
+        if (payloadBuilder == null) {
+            throw new IllegalArgumentException("Unsupported event type: " + eventType);
+        }
+
+        return new HubEventAvro(
+                require(fields.hubId, "hubId"),
+                require(fields.timestamp, "timestamp"),
+                payloadBuilder.apply(fields));
+    }
+
+    private Function<RawFields, Object> inferSensorPayloadBuilder(RawFields fields) {
+        if (fields.temperatureC != null && fields.humidity != null) {
+            return this::toClimateSensorAvro;
+        }
+        if (fields.temperatureC != null) {
+            return this::toTemperatureSensorAvro;
+        }
+        if (fields.state != null) {
+            return this::toSwitchSensorAvro;
+        }
+        if (fields.motion != null) {
+            return this::toMotionSensorAvro;
+        }
+        if (fields.luminosity != null) {
+            return this::toLightSensorAvro;
+        }
+        throw new IllegalArgumentException("Cannot infer sensor event type for sensor: " + fields.id);
+    }
+
+    private RawFields parse(byte[] body) {
+        RawFields fields = new RawFields();
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Raw event must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (name) {
+                    case "id" -> fields.id = readString(parser, token);
+                    case "hubId" -> fields.hubId = readString(parser, token);
+                    case "timestamp" -> fields.timestamp = readInstant(parser, token);
+                    case "eventType" -> fields.eventType = readString(parser, token);
+                    case "type" -> fields.type = readString(parser, token);
+                    case "deviceType" -> fields.deviceType = readString(parser, token);
+                    case "name" -> fields.name = readString(parser, token);
+                    case "temperatureC" -> fields.temperatureC = readInt(parser, token);
+                    case "humidity" -> fields.humidity = readInt(parser, token);
+                    case "co2Level" -> fields.co2Level = readInt(parser, token);
+                    case "luminosity" -> fields.luminosity = readInt(parser, token);
+                    case "linkQuality" -> fields.linkQuality = readInt(parser, token);
+                    case "voltage" -> fields.voltage = readInt(parser, token);
+                    case "motion" -> fields.motion = readBoolean(parser, token);
+                    case "state" -> fields.state = readBoolean(parser, token);
+                    case "conditions" -> fields.conditions = readConditions(parser, token);
+                    case "actions" -> fields.actions = readActions(parser, token);
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed raw event: " + e.getMessage(), e);
+        }
+        return fields;
+    }
+
+    private List<ScenarioConditionAvro> readConditions(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<ScenarioConditionAvro> conditions = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String sensorId = null;
+            String type = null;
+            String operation = null;
+            Object value = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                switch (name) {
+                    case "sensorId" -> sensorId = readString(parser, valueToken);
+                    case "type" -> type = readString(parser, valueToken);
+                    case "operation" -> operation = readString(parser, valueToken);
+                    case "value" -> value = readConditionValue(parser, valueToken);
+                    default -> parser.skipChildren();
+                }
+            }
+            conditions.add(new ScenarioConditionAvro(
+                    require(sensorId, "conditions.sensorId"),
+                    ConditionTypeAvro.valueOf(require(type, "conditions.type")),
+                    ConditionOperationAvro.valueOf(require(operation, "conditions.operation")),
+                    value));
+        }
+        return conditions;
+    }
+
+    private List<DeviceActionAvro> readActions(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<DeviceActionAvro> actions = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String sensorId = null;
+            String type = null;
+            Integer value = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken valueToken = parser.nextToken();
+                switch (name) {
+                    case "sensorId" -> sensorId = readString(parser, valueToken);
+                    case "type" -> type = readString(parser, valueToken);
+                    case "value" -> value = readInt(parser, valueToken);
+                    default -> parser.skipChildren();
+                }
+            }
+            actions.add(new DeviceActionAvro(
+                    require(sensorId, "actions.sensorId"),
+                    ActionTypeAvro.valueOf(require(type, "actions.type")),
+                    value));
+        }
+        return actions;
+    }
+
+    private String readString(JsonParser parser, JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+    }
+
+    private Integer readInt(JsonParser parser, JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+    }
+
+    private Boolean readBoolean(JsonParser parser, JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_NULL ? null : parser.getValueAsBoolean();
+    }
+
+    private Object readConditionValue(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_TRUE, VALUE_FALSE -> parser.getBooleanValue();
+            case VALUE_NUMBER_INT -> parser.getIntValue();
+            case VALUE_NULL -> null;
+            default -> throw new IllegalArgumentException("Unsupported condition value: " + parser.getText());
+        };
+    }
+
+    private Instant readInstant(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_STRING -> Instant.parse(parser.getText());
+            case VALUE_NUMBER_INT -> Instant.ofEpochSecond(parser.getLongValue());
+            case VALUE_NUMBER_FLOAT -> {
+                BigDecimal seconds = parser.getDecimalValue();
+                yield Instant.ofEpochSecond(seconds.longValue(),
+                        seconds.remainder(BigDecimal.ONE).movePointRight(9).intValue());
+            }
+            case VALUE_NULL -> null;
+            default -> throw new IllegalArgumentException("Unsupported timestamp value: " + parser.getText());
+        };
+    }
+
+    private LightSensorAvro toLightSensorAvro(RawFields fields) {
+        return new LightSensorAvro(orZero(fields.linkQuality), orZero(fields.luminosity));
+    }
+
+    private TemperatureSensorAvro toTemperatureSensorAvro(RawFields fields) {
+        int temperatureC = require(fields.temperatureC, "temperatureC");
+        return new TemperatureSensorAvro(temperatureC, (int) (temperatureC * 1.8 + 32));
+    }
+
+    private SwitchSensorAvro toSwitchSensorAvro(RawFields fields) {
+        return new SwitchSensorAvro(require(fields.state, "state"));
+    }
+
+    private ClimateSensorAvro toClimateSensorAvro(RawFields fields) {
+        return new ClimateSensorAvro(
+                require(fields.temperatureC, "temperatureC"),
+                require(fields.humidity, "humidity"),
+                require(fields.co2Level, "co2Level"));
+    }
+
+    private MotionSensorAvro toMotionSensorAvro(RawFields fields) {
+        return new MotionSensorAvro(
+                orZero(fields.linkQuality),
+                require(fields.motion, "motion"),
+                require(fields.voltage, "voltage"));
+    }
+
+    private DeviceAddedEventAvro toDeviceAddedEventAvro(RawFields fields) {
+        return new DeviceAddedEventAvro(
+                require(fields.id, "id"),
+                DeviceTypeAvro.valueOf(require(fields.deviceType, "deviceType")));
+    }
+
+    private DeviceRemovedEventAvro toDeviceRemovedEventAvro(RawFields fields) {
+        return new DeviceRemovedEventAvro(require(fields.id, "id"));
+    }
+
+    private ScenarioAddedEventAvro toScenarioAddedEventAvro(RawFields fields) {
+        return new ScenarioAddedEventAvro(
+                require(fields.name, "name"),
+                require(fields.conditions, "conditions"),
+                require(fields.actions, "actions"));
+    }
+
+    private ScenarioRemovedEventAvro toScenarioRemovedEventAvro(RawFields fields) {
+        return new ScenarioRemovedEventAvro(require(fields.name, "name"));
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static <T> T require(T value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException("Field '" + field + "' is missing in the raw event");
+        }
+        return value;
+    }
+
+    private static final class RawFields {
+        private String id;
+        private String hubId;
+        private Instant timestamp;
+        private String eventType;
+        private String type;
+        private String deviceType;
+        private String name;
+        private Integer temperatureC;
+        private Integer humidity;
+        private Integer co2Level;
+        private Integer luminosity;
+        private Integer linkQuality;
+        private Integer voltage;
+        private Boolean motion;
+        private Boolean state;
+        private List<ScenarioConditionAvro> conditions;
+        private List<DeviceActionAvro> actions;
+    }
+}
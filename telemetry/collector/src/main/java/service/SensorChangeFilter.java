@@ -0,0 +1,123 @@
+package service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+public class SensorChangeFilter {
+
+    private static final int STRIPES = 16;
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    public SensorChangeFilter(@Value("${collector.suppression.enabled:false}") boolean enabled,
+                              @Value("${collector.suppression.max-sensors:100000}") int maxSensors,
+                              @Value("${collector.suppression.ttl:30s}") Duration ttl) {
+        this.enabled = enabled;
+        this.ttlMillis = ttl.toMillis();
+        int stripeCapacity = Math.max(1, maxSensors / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean shouldForward(SensorEventAvro event) {
+        if (!enabled) {
+            return true;
+        }
+
+        SensorKey key = new SensorKey(event.getHubId(), event.getId());
+        long now = System.currentTimeMillis();
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            LastPayload last = stripe.get(key);
+            if (last == null) {
+                stripe.put(key, new LastPayload(event.getPayload(), now));
+            } else if (now - last.forwardedAt < ttlMillis && last.payload.equals(event.getPayload())) {
+                suppressed.increment();
+                return false;
+            } else {
+                last.payload = event.getPayload();
+                last.forwardedAt = now;
+            }
+        }
+        forwarded.increment();
+        return true;
+    }
+
+    public void forget(SensorEventAvro event) {
+        if (!enabled) {
+            return;
+        }
+
+        SensorKey key = new SensorKey(event.getHubId(), event.getId());
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.remove(key);
+        }
+    }
+
+    public long getForwardedCount() {
+        return forwarded.sum();
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${collector.suppression.report-interval-ms:60000}")
+    public void report() {
+        if (enabled) {
+            log.info("Sensor change suppression: forwarded={}, suppressed={}",
+                    getForwardedCount(), getSuppressedCount());
+        }
+    }
+
+    private Stripe stripeFor(SensorKey key) {
+        return stripes[Math.floorMod(key.hashCode(), STRIPES)];
+    }
+
+    private record SensorKey(String hubId, String sensorId) {
+    }
+
+    private static final class LastPayload {
+        private Object payload;
+        private long forwardedAt;
+
+        private LastPayload(Object payload, long forwardedAt) {
+            this.payload = payload;
+            this.forwardedAt = forwardedAt;
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<SensorKey, LastPayload> {
+        private final int capacity;
+
+        private Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SensorKey, LastPayload> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -2,15 +2,31 @@ package service;
 
 import dto.abstractDto.HubEventDto;
 import dto.abstractDto.SensorEventDto;
+import ru.yandex.practicum.grpc.telemetry.event.HubEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface TelemetryService {
     void save(SensorEventDto event);
 
     void save(HubEventDto event);
 
+    CompletableFuture<Void> save(SensorEventProto event);
+
+    CompletableFuture<Void> save(HubEventProto event);
+
+    CompletableFuture<BatchResult> saveSensorEvents(List<SensorEventProto> events);
+
+    CompletableFuture<BatchResult> saveHubEvents(List<HubEventProto> events);
+
     void processRawSensorEvent(Map<String, Object> rawEvent);
 
     void processRawHubEvent(Map<String, Object> rawEvent);
+
+    void processRawSensorEvent(byte[] body);
+
+    void processRawHubEvent(byte[] body);
 }
\ No newline at end of file
@@ -2,58 +2,280 @@ package service;
 
 import dto.abstractDto.HubEventDto;
 import dto.abstractDto.SensorEventDto;
+import kafkaConfig.EventDelivery;
 import kafkaConfig.KafkaEventProducer;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.grpc.telemetry.event.HubEventProto;
+import ru.yandex.practicum.grpc.telemetry.event.SensorEventProto;
 import ru.yandex.practicum.kafka.telemetry.event.HubEventAvro;
 import ru.yandex.practicum.kafka.telemetry.event.SensorEventAvro;
+import ru.yandex.practicum.telemetry.logging.EventLogSampler;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class TelemetryServiceImpl implements TelemetryService {
 
+    private static final CompletableFuture<Void> QUEUED = CompletableFuture.completedFuture(null);
+
     private final KafkaEventProducer eventProducer;
     private final TelemetryMapper telemetryMapper;
     private final EventTypeResolver eventTypeResolver;
+    private final GrpcTelemetryMapper grpcTelemetryMapper;
+    private final GrpcAvroMapper grpcAvroMapper;
+    private final InFlightWindow inFlightWindow;
+    private final HubRateLimiter hubRateLimiter;
+    private final SensorChangeFilter sensorChangeFilter;
+    private final RawEventParser rawEventParser;
+    private final IngestionMetrics metrics;
+    private final EventLogSampler logSampler;
+    private final GrpcMappingMode mappingMode;
+    private final DeliveryMode deliveryMode;
+
+    public TelemetryServiceImpl(KafkaEventProducer eventProducer,
+                                TelemetryMapper telemetryMapper,
+                                EventTypeResolver eventTypeResolver,
+                                GrpcTelemetryMapper grpcTelemetryMapper,
+                                GrpcAvroMapper grpcAvroMapper,
+                                InFlightWindow inFlightWindow,
+                                HubRateLimiter hubRateLimiter,
+                                SensorChangeFilter sensorChangeFilter,
+                                RawEventParser rawEventParser,
+                                IngestionMetrics metrics,
+                                EventLogSampler logSampler,
+                                @Value("${collector.grpc.mapping-mode:DIRECT}") GrpcMappingMode mappingMode,
+                                @Value("${collector.delivery.mode:QUEUED}") DeliveryMode deliveryMode) {
+        this.eventProducer = eventProducer;
+        this.telemetryMapper = telemetryMapper;
+        this.eventTypeResolver = eventTypeResolver;
+        this.grpcTelemetryMapper = grpcTelemetryMapper;
+        this.grpcAvroMapper = grpcAvroMapper;
+        this.inFlightWindow = inFlightWindow;
+        this.hubRateLimiter = hubRateLimiter;
+        this.sensorChangeFilter = sensorChangeFilter;
+        this.rawEventParser = rawEventParser;
+        this.metrics = metrics;
+        this.logSampler = logSampler;
+        this.mappingMode = mappingMode;
+        this.deliveryMode = deliveryMode;
+    }
 
+    // Every public entry point samples once per event; the decision travels down to the producer callback.
     @Override
     public void save(SensorEventDto event) {
-        var avro = telemetryMapper.toAvro(event);
-        sendAndLog(avro, event, "Sensor");
+        save(event, logSampler.sample());
     }
 
     @Override
     public void save(HubEventDto event) {
-        var avro = telemetryMapper.toAvro(event);
-        sendAndLog(avro, event, "Hub");
+        save(event, logSampler.sample());
+    }
+
+    @Override
+    public CompletableFuture<Void> save(SensorEventProto event) {
+        boolean logEvent = logSampler.sample();
+        var avro = toAvro(event);
+        CompletableFuture<Void> delivery = deliver(avro, logEvent);
+        if (logEvent) {
+            log.info("Sensor event saved: {}", avro);
+        }
+        return delivery;
+    }
+
+    @Override
+    public CompletableFuture<Void> save(HubEventProto event) {
+        boolean logEvent = logSampler.sample();
+        var avro = toAvro(event);
+        CompletableFuture<Void> delivery = deliver(avro, logEvent);
+        if (logEvent) {
+            log.info("Hub event saved: {}", avro);
+        }
+        return delivery;
+    }
+
+    @Override
+    public CompletableFuture<BatchResult> saveSensorEvents(List<SensorEventProto> events) {
+        return saveBatch(events, event -> deliver(toAvro(event), logSampler.sample()), "Sensor");
+    }
+
+    @Override
+    public CompletableFuture<BatchResult> saveHubEvents(List<HubEventProto> events) {
+        return saveBatch(events, event -> deliver(toAvro(event), logSampler.sample()), "Hub");
     }
 
     @Override
     public void processRawSensorEvent(Map<String, Object> rawEvent) {
-        log.info("Processing raw sensor event: {}", rawEvent);
+        boolean logEvent = logSampler.sample();
+        if (logEvent) {
+            log.info("Processing raw sensor event: {}", rawEvent);
+        }
         SensorEventDto eventDto = eventTypeResolver.resolveSensorEvent(rawEvent);
-        save(eventDto);
+        save(eventDto, logEvent);
     }
 
     @Override
     public void processRawHubEvent(Map<String, Object> rawEvent) {
-        log.info("Processing raw hub event: {}", rawEvent);
+        boolean logEvent = logSampler.sample();
+        if (logEvent) {
+            log.info("Processing raw hub event: {}", rawEvent);
+        }
         HubEventDto eventDto = eventTypeResolver.resolveHubEvent(rawEvent);
-        save(eventDto);
+        save(eventDto, logEvent);
+    }
+
+    @Override
+    public void processRawSensorEvent(byte[] body) {
+        boolean logEvent = logSampler.sample();
+        SensorEventAvro event = rawEventParser.parseSensorEvent(body);
+        metrics.receivedRawSensor(event.getPayload());
+        deliver(event, logEvent);
+        if (logEvent) {
+            log.info("Raw sensor event saved: {}", event);
+        }
+    }
+
+    @Override
+    public void processRawHubEvent(byte[] body) {
+        boolean logEvent = logSampler.sample();
+        HubEventAvro event = rawEventParser.parseHubEvent(body);
+        metrics.receivedRawHub(event.getPayload());
+        deliver(event, logEvent);
+        if (logEvent) {
+            log.info("Raw hub event saved: {}", event);
+        }
     }
 
-    private void sendAndLog(Object avroEvent, Object dto, String eventType) {
-        if (avroEvent instanceof SensorEventAvro) {
-            eventProducer.send((SensorEventAvro) avroEvent);
-        } else if (avroEvent instanceof HubEventAvro) {
-            eventProducer.send((HubEventAvro) avroEvent);
-        } else {
-            throw new IllegalStateException("Unknown avro event type: " + avroEvent.getClass().getName());
+    private void save(SensorEventDto event, boolean logEvent) {
+        var avro = telemetryMapper.toAvro(event);
+        deliver(avro, logEvent);
+        if (logEvent) {
+            log.info("Sensor event saved: {}", event);
+        }
+    }
+
+    private void save(HubEventDto event, boolean logEvent) {
+        var avro = telemetryMapper.toAvro(event);
+        deliver(avro, logEvent);
+        if (logEvent) {
+            log.info("Hub event saved: {}", event);
         }
-        log.info("{} event saved: {}", eventType, dto);
     }
-}
\ No newline at end of file
+
+    private SensorEventAvro toAvro(SensorEventProto event) {
+        metrics.received(event);
+        long start = System.nanoTime();
+        SensorEventAvro avro = mappingMode == GrpcMappingMode.DIRECT
+                ? grpcAvroMapper.toAvro(event)
+                : telemetryMapper.toAvro(grpcTelemetryMapper.map(event));
+        metrics.sensorMapped(System.nanoTime() - start);
+        return avro;
+    }
+
+    private HubEventAvro toAvro(HubEventProto event) {
+        metrics.received(event);
+        long start = System.nanoTime();
+        HubEventAvro avro = mappingMode == GrpcMappingMode.DIRECT
+                ? grpcAvroMapper.toAvro(event)
+                : telemetryMapper.toAvro(grpcTelemetryMapper.map(event));
+        metrics.hubMapped(System.nanoTime() - start);
+        return avro;
+    }
+
+    private CompletableFuture<Void> deliver(SensorEventAvro event, boolean logEvent) {
+        if (!sensorChangeFilter.isEnabled()) {
+            return deliver(event.getHubId(), () -> eventProducer.send(event, logEvent));
+        }
+        if (!sensorChangeFilter.shouldForward(event)) {
+            return QUEUED;
+        }
+        try {
+            return deliver(event.getHubId(), () -> {
+                EventDelivery delivery = eventProducer.send(event, logEvent);
+                delivery.accepted().whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        sensorChangeFilter.forget(event);
+                    }
+                });
+                return delivery;
+            });
+        } catch (RuntimeException e) {
+            sensorChangeFilter.forget(event);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Void> deliver(HubEventAvro event, boolean logEvent) {
+        return deliver(event.getHubId(), () -> eventProducer.send(event, logEvent));
+    }
+
+    private CompletableFuture<Void> deliver(String hubId, Supplier<EventDelivery> sender) {
+        if (!hubRateLimiter.tryAcquire(hubId)) {
+            throw new RateLimitExceededException(hubId);
+        }
+        if (!inFlightWindow.tryAcquire(hubId)) {
+            throw new InFlightLimitExceededException(hubId);
+        }
+
+        EventDelivery delivery;
+        try {
+            delivery = sender.get();
+        } catch (RuntimeException e) {
+            inFlightWindow.release(hubId);
+            throw e;
+        }
+
+        // ACKED answers only once Kafka has the event, even if it waits out an outage in the spool.
+        CompletableFuture<?> settled = deliveryMode == DeliveryMode.ACKED ? delivery.acked() : delivery.accepted();
+        CompletableFuture<Void> released = settled.handle((ignored, e) -> {
+            inFlightWindow.release(hubId);
+            if (e != null) {
+                throw e instanceof CompletionException ce ? ce : new CompletionException(e);
+            }
+            return null;
+        });
+        return deliveryMode == DeliveryMode.ACKED ? released : QUEUED;
+    }
+
+    private <T> CompletableFuture<BatchResult> saveBatch(List<T> events,
+                                                         Function<T, CompletableFuture<Void>> sender,
+                                                         String eventType) {
+        Map<Integer, Throwable> failures = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            int index = i;
+            try {
+                CompletableFuture<Void> delivery = sender.apply(events.get(i));
+                if (!delivery.isDone() || delivery.isCompletedExceptionally()) {
+                    pending.add(delivery.exceptionally(e -> {
+                        failures.put(index, unwrap(e));
+                        return null;
+                    }));
+                }
+            } catch (Exception e) {
+                log.warn("Event #{} of batch rejected: {}", i, e.getMessage());
+                failures.put(i, e);
+            }
+        }
+
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    BatchResult result = new BatchResult(events.size() - failures.size(), failures);
+                    log.info("{} batch saved: accepted={}, rejected={}", eventType, result.accepted(), result.rejected());
+                    return result;
+                });
+    }
+
+    private Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.telemetry.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class CountingAsyncAppender extends AsyncAppender {
+
+    private static final LongAdder DROPPED = new LongAdder();
+
+    public static long getDroppedCount() {
+        return DROPPED.sum();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if ((remaining < getDiscardingThreshold() && isDiscardable(event)) || (isNeverBlock() && remaining == 0)) {
+            DROPPED.increment();
+        }
+        super.append(event);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.telemetry.logging;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Решение принимается один раз на событие у точки входа и передаётся дальше флагом
+public class EventLogSampler {
+
+    private final int sampleRate;
+    private final LongAdder suppressed = new LongAdder();
+
+    public EventLogSampler(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public boolean sample() {
+        if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+}